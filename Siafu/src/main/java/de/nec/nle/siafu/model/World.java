@@ -322,6 +322,16 @@ public class World {
 		return worldName;
 	}
 
+	/**
+	 * Get the configuration of the simulation, as read from its config.xml,
+	 * so that the models can read their own settings from it.
+	 * 
+	 * @return the simulation's configuration
+	 */
+	public Configuration getSimulationConfig() {
+		return simulationConfig;
+	}
+
 	/**
 	 * Get the height of the world map in pixels.
 	 * 
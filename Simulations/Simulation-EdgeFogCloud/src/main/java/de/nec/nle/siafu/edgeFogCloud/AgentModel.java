@@ -20,27 +20,54 @@
 package de.nec.nle.siafu.edgeFogCloud;
 
 import static de.nec.nle.siafu.edgeFogCloud.Constants.DEFAULT_SPEED;
-import static de.nec.nle.siafu.edgeFogCloud.Constants.EDGEPLACES;
 
 import static de.nec.nle.siafu.edgeFogCloud.Constants.PlaceFields.*;
 
 import static de.nec.nle.siafu.edgeFogCloud.Constants.Fields.*;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import de.nec.nle.siafu.behaviormodels.BaseAgentModel;
 import de.nec.nle.siafu.edgeFogCloud.Constants.Activity;
+import de.nec.nle.siafu.edgeFogCloud.Constants.Application;
+import de.nec.nle.siafu.edgeFogCloud.Constants.InteroperabilityPath;
+import de.nec.nle.siafu.edgeFogCloud.codec.PayloadCodec;
+import de.nec.nle.siafu.edgeFogCloud.codec.PayloadCodecs;
+import de.nec.nle.siafu.edgeFogCloud.latency.LatencyHistogram;
+import de.nec.nle.siafu.edgeFogCloud.latency.LatencyRecorder;
+import de.nec.nle.siafu.edgeFogCloud.network.ArrivalQueue;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+import de.nec.nle.siafu.edgeFogCloud.network.LinkModel;
+import de.nec.nle.siafu.edgeFogCloud.network.Transit;
 import de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController;
+import de.nec.nle.siafu.edgeFogCloud.routing.CloudPartitioner;
+import de.nec.nle.siafu.edgeFogCloud.routing.CloudPartitioners;
+import de.nec.nle.siafu.edgeFogCloud.routing.FogDirectory;
+import de.nec.nle.siafu.edgeFogCloud.routing.FogSelectionPolicies;
+import de.nec.nle.siafu.edgeFogCloud.routing.FogSelectionPolicy;
+import de.nec.nle.siafu.edgeFogCloud.placement.PlacementCosts;
+import de.nec.nle.siafu.edgeFogCloud.placement.PlacementPolicies;
+import de.nec.nle.siafu.edgeFogCloud.placement.PlacementPolicy;
+import de.nec.nle.siafu.edgeFogCloud.placement.Tier;
+import de.nec.nle.siafu.edgeFogCloud.workload.EmissionSchedule;
+import de.nec.nle.siafu.edgeFogCloud.workload.TraceRecord;
 import de.nec.nle.siafu.exceptions.InfoUndefinedException;
-import de.nec.nle.siafu.exceptions.PlaceNotFoundException;
 import de.nec.nle.siafu.exceptions.PlaceTypeUndefinedException;
 import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Gradient;
 import de.nec.nle.siafu.model.Place;
 import de.nec.nle.siafu.model.Position;
 import de.nec.nle.siafu.model.World;
+import de.nec.nle.siafu.types.FloatNumber;
+import de.nec.nle.siafu.types.IntegerNumber;
 import de.nec.nle.siafu.types.Publishable;
 import de.nec.nle.siafu.types.Text;
 
@@ -54,9 +81,154 @@ import de.nec.nle.siafu.types.Text;
  */
 public class AgentModel extends BaseAgentModel {
 
-	/** The unique cloud server. */
+	/** The value of the fields that aren't set. */
+	private static final Text NONE = new Text("none");
+
+	/** The payload pool of the latest agent model, stopped when a new simulation replaces it. */
+	private static PayloadPool currentPayloadPool;
+
+	/** The agent model whose latencies are exported when the JVM exits, null if none is. */
+	private static AgentModel latencyExporter;
+
+	/** The shutdown hook that exports the latencies, registered once for all the agent models. */
+	private static Thread latencyExportHook;
+
+	/** The first cloud server, which also publishes the metrics of the simulation. */
 	private Place cloudServer;
 
+	/** The cloud servers, between which the cloud tier is sharded. */
+	private Place[] cloudServers;
+
+	/** Chooses the cloud server that ingests each package. */
+	private final CloudPartitioner cloudPartitioner;
+
+	/** How many other cloud servers each cloud server replicates what it ingests to. */
+	private final int cloudReplicas;
+
+	/** The packages, bytes and total fog distance each cloud server ingested, in the order of cloudServers. */
+	private final long[] cloudPackages, cloudBytes, cloudDistance;
+
+	/** The replicas and replicated bytes each cloud server received. */
+	private final long[] cloudReplicasReceived, cloudReplicaBytes;
+
+	/** The nearest fog server to each cell of the map. */
+	private final NearestPlaceMap nearestFogServers;
+
+	/** Chooses the fog server each package goes to. */
+	private final FogSelectionPolicy fogSelection;
+
+	/** The places of each type, copied once to pick random places from. */
+	private final HashMap<String, Place[]> placesByType = new HashMap<String, Place[]>();
+
+	/** The fog servers followed by the cloud servers. */
+	private final Place[] servers;
+
+	/** The service queue of each server, in the same order. */
+	private final ServiceQueue[] serviceQueues;
+
+	/** The links between the tiers, which set the transit time of each hop. */
+	private final LinkModel linkModel;
+
+	/** The arrivals of the packages in transit, null unless the transport is discrete-event. */
+	private final ArrivalQueue arrivals;
+
+	/** The latency histograms of the hops, tiers, applications and forms. */
+	private final LatencyRecorder latency = new LatencyRecorder();
+
+	/** The CSV file the latencies are exported to, null if they aren't. */
+	private final File latencyFile;
+
+	/** The iterations between two exports of the latencies, 0 to only export them at the end. */
+	private final int latencyInterval;
+
+	/** The most interoperability requests each edge server can have on their way, 0 for no limit. */
+	private final int interoperabilityPerEdge;
+
+	/** Whether identical interoperability requests wait for the one already going to the cloud. */
+	private final boolean coalesceInteroperability;
+
+	/** The interoperability requests on their way from each edge server. */
+	private final HashMap<Place, Integer> interoperabilityInFlight = new HashMap<Place, Integer>();
+
+	/** The requests waiting at each local fog server for the data of another one, by local and target fog. */
+	private final HashMap<String, ArrayList<Agent>> coalescedRequests = new HashMap<String, ArrayList<Agent>>();
+
+	/** The interoperability requests made, and the ones that went to the cloud or to a peer. */
+	private long interoperabilityRequests, interoperabilityCloudTrips, interoperabilityPeerTrips;
+
+	/** Whether the fog servers ask the peer that holds the data instead of the cloud. */
+	private final boolean peerInteroperability;
+
+	/** Where the fog servers find the peer that holds the data. */
+	private final FogDirectory fogDirectory = new FogDirectory();
+
+	/** The interoperability requests that got back through each path, and their hops, by ordinal. */
+	private final long[] interoperabilityPathRequests = new long[InteroperabilityPath.values().length],
+			interoperabilityPathHops = new long[InteroperabilityPath.values().length];
+
+	/** The interoperability requests coalesced, served by a fog cache, and held by the limit per edge server. */
+	private long interoperabilityCoalesced, interoperabilityCacheHits, interoperabilityThrottled;
+
+	/** The push subscriptions, which count the polls of the interoperability requesters to compare. */
+	private final FogSubscriptions subscriptions;
+
+	/** The costs of reducing the packages at each tier. */
+	private final PlacementCosts placementCosts;
+
+	/** Chooses the tier that reduces each package. */
+	private final PlacementPolicy placement;
+
+	/** The packages reduced at each tier, by ordinal. */
+	private final long[] placements = new long[Tier.values().length];
+
+	/** The bytes the packages sent through each hop, by ordinal. */
+	private final long[] hopBytes = new long[Hop.values().length];
+
+	/** The trips the packages finished. */
+	private long trips;
+
+	/** The total latency of the trips the packages finished. */
+	private double tripsSeconds;
+
+	/** The open-loop emissions of the origin types with an arrival process. */
+	private EmissionSchedule emissions;
+
+	/** The simulation time at the start, in seconds, which the emissions add the network clock to. */
+	private double startSeconds;
+
+	/** The codec the Edge and Fog servers reduce the packages with. */
+	private final PayloadCodec codec;
+
+	/** The random payloads ready for new packages. */
+	private final PayloadPool payloadPool;
+
+	/** The iterations in each fog aggregation window, 0 if packages aren't aggregated. */
+	private final int aggregationWindow;
+
+	/** How many superclasses the fog aggregation rolls values up. */
+	private final int aggregationLevels;
+
+	/** The aggregation stage of each fog server, for the application 1. */
+	private final HashMap<Place, FogAggregator> app1Aggregators = new HashMap<Place, FogAggregator>();
+
+	/** The aggregation stage of each fog server, for the application 2. */
+	private final HashMap<Place, FogAggregator> app2Aggregators = new HashMap<Place, FogAggregator>();
+
+	/** The agent that carries the batches of each fog server to the cloud, for the application 1. */
+	private final HashMap<Place, Agent> app1Batches = new HashMap<Place, Agent>();
+
+	/** The agent that carries the batches of each fog server to the cloud, for the application 2. */
+	private final HashMap<Place, Agent> app2Batches = new HashMap<Place, Agent>();
+
+	/** The iterations done so far. */
+	private long iteration;
+
+	/** The packages aggregated and the size they would have sent to the cloud. */
+	private long aggregatedPackages, aggregatedSize;
+
+	/** The batches the fog servers sent to the cloud and their size. */
+	private long batches, batchesSize;
+
 	/**
 	 * Instantiates this agent model.
 	 * 
@@ -65,11 +237,69 @@ public class AgentModel extends BaseAgentModel {
 	public AgentModel(final World world) {
 		super(world);
 		try {
-			cloudServer = world.getPlacesOfType("Cloud").iterator().next();
-
+			cloudServers = world.getPlacesOfType("Cloud").toArray(new Place[0]);
 		} catch (PlaceTypeUndefinedException e) {
 			throw new RuntimeException("The cloud server is undefined", e);
 		}
+		if(cloudServers.length == 0)
+		{
+			throw new RuntimeException("The cloud server is undefined");
+		}
+		cloudServer = cloudServers[0];
+		cloudPartitioner = CloudPartitioners.create(world.getSimulationConfig(), cloudServers, ORIGIN, SENDER, PDATA);
+		cloudReplicas = Math.min(cloudServers.length - 1,
+				Math.max(0, world.getSimulationConfig().getInt("clouds[@replicas]", 0)));
+		cloudPackages = new long[cloudServers.length];
+		cloudBytes = new long[cloudServers.length];
+		cloudDistance = new long[cloudServers.length];
+		cloudReplicasReceived = new long[cloudServers.length];
+		cloudReplicaBytes = new long[cloudServers.length];
+		nearestFogServers = new NearestPlaceMap(world, "Fog");
+		Place[] fogServers = nearestFogServers.getPlaces();
+		servers = Arrays.copyOf(fogServers, fogServers.length + cloudServers.length);
+		System.arraycopy(cloudServers, 0, servers, fogServers.length, cloudServers.length);
+		serviceQueues = new ServiceQueue[servers.length];
+		for (int i = 0; i < servers.length; i++) {
+			serviceQueues[i] = (ServiceQueue) servers[i].get(SERVICEQUEUE);
+		}
+		fogSelection = FogSelectionPolicies.create(world.getSimulationConfig(),
+				nearestFogServers, ORIGIN);
+		linkModel = new LinkModel(world.getSimulationConfig());
+		String transport = world.getSimulationConfig().getString("transport", "animated");
+		if(transport.equals("event"))
+		{
+			arrivals = new ArrivalQueue(linkModel.getTimestep());
+		}
+		else if(transport.equals("animated"))
+		{
+			arrivals = null;
+		}
+		else
+		{
+			throw new RuntimeException("Unknown transport " + transport);
+		}
+		String latencyPath = world.getSimulationConfig().getString("latency[@file]", "");
+		latencyFile = latencyPath.isEmpty() ? null : new File(latencyPath);
+		latencyInterval = world.getSimulationConfig().getInt("latency[@interval]", 0);
+		cloudServer.set(LATENCY, latency);
+		subscriptions = (FogSubscriptions) cloudServer.get(SUBSCRIPTIONS);
+		replaceLatencyExporter(latencyFile != null ? this : null);
+		interoperabilityPerEdge = world.getSimulationConfig().getInt("interoperability[@peredge]", 0);
+		String path = world.getSimulationConfig().getString("interoperability[@path]", "cloud");
+		if(!path.equals("cloud") && !path.equals("peer"))
+		{
+			throw new RuntimeException("Unknown interoperability path " + path);
+		}
+		peerInteroperability = path.equals("peer");
+		coalesceInteroperability = world.getSimulationConfig().getBoolean("interoperability[@coalesce]", false);
+		DiseaseOntologyController.configure(world.getSimulationConfig());
+		codec = PayloadCodecs.create(world.getSimulationConfig());
+		placementCosts = new PlacementCosts(world.getSimulationConfig(), linkModel, codec);
+		placement = PlacementPolicies.create(world.getSimulationConfig(), placementCosts);
+		payloadPool = PayloadPool.createConfigured(world.getSimulationConfig(), codec);
+		replacePayloadPool(payloadPool);
+		aggregationWindow = world.getSimulationConfig().getInt(FogAggregator.WINDOW_KEY, 0);
+		aggregationLevels = world.getSimulationConfig().getInt(FogAggregator.LEVELS_KEY, 1);
 	}
 
 	/**
@@ -82,113 +312,91 @@ public class AgentModel extends BaseAgentModel {
 	public ArrayList<Agent> createAgents() {
 		
 		ArrayList<Agent> packages = new ArrayList<Agent>();
-		createPackageSensitiveToOrigin(packages);
+		createPackages(packages);
 		return packages;
 	}
 
 	/**
-	 * This method creates all the workers for the simulation.
+	 * This method creates all the packages for the simulation, as many as
+	 * the population in config.xml asks for, plus the interoperability
+	 * requesters and, if the fog servers aggregate, the agents that carry
+	 * their batches.
 	 * 
 	 * @param packages the array where you need to put your created agents
-	 * @param origin   the type of place of origin (edge vs house)
 	 */
-	private void createPackage(final ArrayList<Agent> packages, final String origin) {
-		Iterator<Place> originIt;
-		Place randomEdgeOrigin;
-		try {
-			randomEdgeOrigin = world.getRandomPlaceOfType("Edge");
-			originIt = world.getPlacesOfType(origin).iterator();
-		} catch (PlaceTypeUndefinedException e) {
-			throw new RuntimeException("No houses defined", e);
-		} catch (PlaceNotFoundException e) {
-			throw new RuntimeException("No edge servers defined", e);
+	private void createPackages(final ArrayList<Agent> packages) {
+		PackagePopulation population = new PackagePopulation(world.getSimulationConfig());
+		String[] originTypes = population.getOriginTypes();
+		for (String originType : originTypes) {
+			getPlacesOfType(originType);
 		}
+		startSeconds = seconds(world.getTime());
+		emissions = new EmissionSchedule(world.getSimulationConfig(), originTypes, placesByType,
+				world.getTime().getTimeZone(), startSeconds);
+		int requesters = world.getSimulationConfig().getInt("interoperability[@requesters]", 1);
+		packages.ensureCapacity(population.getCount() + requesters);
 
-		int i = 0;
-		while (originIt.hasNext() && i<40) {
-			Place placeOfOrigin = originIt.next();
-			String packageData;
+		for (int i = 0; i < population.getCount(); i++) {
+			int origin = population.nextOrigin();
+			Place placeOfOrigin = getRandomPlaceOfType(originTypes[origin]);
 
 			Agent a = new Agent("Package" + i, placeOfOrigin.getPos(), "CarBlue", world);
 			a.setVisible(false);
 
-			packageData = DiseaseOntologyController.getInstance().getRandomSetOfValues();
-			Integer packageSize = packageData.length()-4;
-			int packageSpeed = calculateSpeed(packageSize);
-			
-			a.set(PDATA, new Text(packageData));
-			a.set(PSIZE, new Text(packageSize.toString()));
+			setPackageData(a, payloadPool.take());
 			a.set(ORIGIN, placeOfOrigin);
+			a.set(SENDER, population.nextApplication(origin));
 			a.set(ACTIVITY, Activity.ONHOLD);
-			a.set(FOGTARGET, new Text("none"));
-			a.set(TEMPDEST, new Text("none"));
-			a.setSpeed(packageSpeed);
+			a.set(FOGTARGET, NONE);
+			clearTripFields(a);
+			if (emissions.isOpen(originTypes[origin])) {
+				emissions.release(a, originTypes[origin]);
+			}
 			packages.add(a);
-			i++;
 		}
 		
-		Agent interoperabilityPackage = new Agent("InteroperabilityPackage",
-				randomEdgeOrigin.getPos(), "CarRed", world);
-		
-		restartInteroperability(interoperabilityPackage);
-		packages.add(interoperabilityPackage);
-		
+		for (int i = 0; i < requesters; i++) {
+			Agent interoperabilityPackage = new Agent("InteroperabilityPackage" + i,
+					getRandomPlaceOfType("Edge").getPos(), "CarRed", world);
+
+			restartInteroperability(interoperabilityPackage);
+			packages.add(interoperabilityPackage);
+		}
+
+		if (aggregationWindow > 0) {
+			Place[] fogServers = nearestFogServers.getPlaces();
+			for (int i = 0; i < fogServers.length; i++) {
+				Agent app1Batch = createFogBatch("FogBatchAPP1-" + i, fogServers[i], Application.APP1);
+				Agent app2Batch = createFogBatch("FogBatchAPP2-" + i, fogServers[i], Application.APP2);
+				app1Batches.put(fogServers[i], app1Batch);
+				app2Batches.put(fogServers[i], app2Batch);
+				packages.add(app1Batch);
+				packages.add(app2Batch);
+			}
+		}
 	}
 
 	/**
-	 * This method creates all the workers for the simulation.
+	 * Create the agent that carries the batches of a fog server to the
+	 * cloud, for one application. It waits at the fog server while it has
+	 * no batch to carry.
 	 * 
-	 * @param packages the array where you need to put your created agents
-	 * @param origin   the type of place of origin (edge vs house)
+	 * @param name the name of the agent
+	 * @param fogServer the fog server
+	 * @param application the application of its batches
+	 * @return the agent
 	 */
-	private void createPackageSensitiveToOrigin(final ArrayList<Agent> packages) {
-
-		Place randomEdgeOrigin;
-		try {
-			randomEdgeOrigin = world.getRandomPlaceOfType("Edge");
-			int i = 0;
-			while (i<40) {
-				Place placeOfOrigin;
-				if(i%2==0)
-				{
-					placeOfOrigin = world.getRandomPlaceOfType("Edge");
-				}
-				else
-				{
-					placeOfOrigin = world.getRandomPlaceOfType("House");
-				}
-				String packageData;
-
-				Agent a = new Agent("Package" + i, placeOfOrigin.getPos(), "CarBlue", world);
-				a.setVisible(false);
-
-				packageData = DiseaseOntologyController.getInstance().getRandomSetOfValues();
-				Integer packageSize = packageData.length()-4;
-				int packageSpeed = calculateSpeed(packageSize);
-				
-				a.set(PDATA, new Text(packageData));
-				a.set(PSIZE, new Text(packageSize.toString()));
-				a.set(ORIGIN, placeOfOrigin);
-				a.set(ACTIVITY, Activity.ONHOLD);
-				a.set(FOGTARGET, new Text("none"));
-				a.set(TEMPDEST, new Text("none"));
-				a.setSpeed(packageSpeed);
-				packages.add(a);
-				i++;
-			}
-			
-		} catch (PlaceTypeUndefinedException e) {
-			throw new RuntimeException("No houses defined", e);
-		} catch (PlaceNotFoundException e) {
-			throw new RuntimeException("No edge servers defined", e);
-		}
-		
-		Agent interoperabilityPackage = new Agent("InteroperabilityPackage",
-				randomEdgeOrigin.getPos(), "CarRed", world);
-		
-		restartInteroperability(interoperabilityPackage);
-		packages.add(interoperabilityPackage);
-		
+	private Agent createFogBatch(final String name, final Place fogServer, final Application application) {
+		Agent a = new Agent(name, fogServer.getPos(), "CarYellow", world);
+		a.setVisible(false);
+		a.set(PDATA, NONE);
+		a.set(PSIZE, new IntegerNumber(0));
+		a.set(ORIGIN, fogServer);
+		a.set(SENDER, application);
+		a.set(ACTIVITY, Activity.ONHOLD);
+		a.set(FOGTARGET, NONE);
+		clearTripFields(a);
+		return a;
 	}
 
 	/**
@@ -200,20 +408,177 @@ public class AgentModel extends BaseAgentModel {
 	@Override
 	public void doIteration(final Collection<Agent> agents) {
 
+		if(arrivals != null)
+		{
+			fireArrivals();
+		}
+		emitDue();
 		Iterator<Agent> packagesIt = agents.iterator();
 		while (packagesIt.hasNext()) {
-			
-			Agent currentPackage = packagesIt.next();
-			
-			if(!currentPackage.getName().contains("InteroperabilityPackage"))
-			{
-				handlePackage(currentPackage);
+			handle(packagesIt.next());
+		}
+		serveQueues();
+		updatePayloadPoolMetrics();
+		updateInteroperabilityMetrics();
+		updatePlacementMetrics();
+		updateCloudMetrics();
+		iteration++;
+		if(latencyFile != null && latencyInterval > 0 && iteration % latencyInterval == 0)
+		{
+			latency.export(latencyFile, iteration);
+		}
+		if(aggregationWindow > 0 && iteration % aggregationWindow == 0)
+		{
+			flushFogAggregators(app1Aggregators, true);
+			flushFogAggregators(app2Aggregators, false);
+			cloudServer.set(AGGREGATIONSAVEDDATA, new Text(String.valueOf(aggregatedSize - batchesSize)));
+			cloudServer.set(AGGREGATIONSAVEDARRIVALS, new Text(String.valueOf(aggregatedPackages - batches)));
+		}
+	}
+
+	/**
+	 * Publish how many interoperability requests were made, how many went to
+	 * the cloud or to a peer, and how many the coalescing, the fog caches and
+	 * the limit per edge server held, on the cloud server, along with the
+	 * requests, average hops and latency of each path, to compare them.
+	 */
+	private void updateInteroperabilityMetrics() {
+		cloudServer.set(INTEROPERABILITYTRAFFIC, new Text(interoperabilityRequests + " requests, "
+				+ interoperabilityCloudTrips + " cloud trips, " + interoperabilityPeerTrips + " peer trips ("
+				+ fogDirectory + "), " + interoperabilityCoalesced + " coalesced, "
+				+ interoperabilityCacheHits + " cache hits, " + interoperabilityThrottled + " throttled"));
+		StringBuilder paths = new StringBuilder();
+		for (InteroperabilityPath path : InteroperabilityPath.values()) {
+			long requests = interoperabilityPathRequests[path.ordinal()];
+			if (requests == 0) {
+				continue;
 			}
-			else
-			{
-				handleInteroperabilityPackage(currentPackage);
+			LatencyHistogram roundTrips = latency.get("interoperability " + path);
+			paths.append(paths.length() > 0 ? "; " : "").append(path).append(' ').append(requests)
+					.append(" requests, ").append(String.format("%.1f", (double) interoperabilityPathHops[path.ordinal()] / requests))
+					.append(" hops, p50 ").append(String.format("%.3f", roundTrips.getPercentile(50) / 1000.0))
+					.append(" p99 ").append(String.format("%.3f", roundTrips.getPercentile(99) / 1000.0)).append(" ms");
+		}
+		if (paths.length() > 0) {
+			cloudServer.set(INTEROPERABILITYPATHS, new Text(paths.toString()));
+		}
+	}
+
+	/**
+	 * Stop the workers of the pool of the simulation this one replaces, so
+	 * they don't keep generating payloads for a discarded model.
+	 * 
+	 * @param pool the pool of the new agent model
+	 */
+	private static synchronized void replacePayloadPool(final PayloadPool pool) {
+		if (currentPayloadPool != null) {
+			currentPayloadPool.shutdown();
+		}
+		currentPayloadPool = pool;
+	}
+
+	/**
+	 * Export the latencies of a new agent model when the JVM exits, instead
+	 * of the ones of the simulation it replaces. The shutdown hook is only
+	 * registered the first time, so restarted simulations neither keep the
+	 * discarded models alive nor export them again.
+	 * 
+	 * @param model the new agent model, null if it doesn't export its latencies
+	 */
+	private static synchronized void replaceLatencyExporter(final AgentModel model) {
+		latencyExporter = model;
+		if (model != null && latencyExportHook == null) {
+			latencyExportHook = new Thread("Latency export") {
+				public void run() {
+					exportLatencyAtExit();
+				}
+			};
+			Runtime.getRuntime().addShutdownHook(latencyExportHook);
+		}
+	}
+
+	/**
+	 * Export the latencies of the latest agent model, if it exports them.
+	 */
+	private static synchronized void exportLatencyAtExit() {
+		if (latencyExporter != null) {
+			latencyExporter.latency.export(latencyExporter.latencyFile, latencyExporter.iteration);
+		}
+	}
+
+	/**
+	 * @param a the agent
+	 * @return true if the agent is an interoperability requester
+	 */
+	private static boolean isInteroperabilityRequester(final Agent a) {
+		return a.getName().contains("InteroperabilityPackage");
+	}
+
+	/**
+	 * @param a the agent
+	 * @return true if the agent carries the batches of a fog server
+	 */
+	private static boolean isFogBatch(final Agent a) {
+		return a.getName().startsWith("FogBatch");
+	}
+
+	/**
+	 * Publish the placement policy, the packages reduced at each tier, the
+	 * mean latency of their trips and the bytes sent through each hop on the
+	 * cloud server, to compare the policies between runs.
+	 */
+	private void updatePlacementMetrics() {
+		StringBuilder report = new StringBuilder(placement.getName()).append(':');
+		for (Tier tier : Tier.values()) {
+			report.append(' ').append(placements[tier.ordinal()]).append(' ').append(tier);
+		}
+		report.append(String.format("; mean trip %.3f ms;", trips == 0 ? 0.0 : tripsSeconds / trips * 1000));
+		for (Hop hop : Hop.values()) {
+			if (hopBytes[hop.ordinal()] > 0) {
+				report.append(' ').append(hop).append(' ').append(hopBytes[hop.ordinal()]).append(" B");
 			}
 		}
+		cloudServer.set(PLACEMENTREPORT, new Text(report.toString()));
+	}
+
+	/**
+	 * Handle a package, an interoperability requester or a fog batch.
+	 * 
+	 * @param currentPackage the agent to handle
+	 */
+	private void handle(final Agent currentPackage) {
+		if (isFogBatch(currentPackage)) {
+			handleFogBatch(currentPackage);
+		} else if (!isInteroperabilityRequester(currentPackage)) {
+			handlePackage(currentPackage);
+		} else {
+			handleInteroperabilityPackage(currentPackage);
+		}
+	}
+
+	/**
+	 * Hand a fog batch over to the cloud server once it reaches it. It
+	 * waits at its fog server, and in the queue of the cloud server, until
+	 * it's sent or served.
+	 * 
+	 * @param a the agent that carries the batch
+	 */
+	private void handleFogBatch(final Agent a) {
+		if (a.get(ACTIVITY) == Activity.GOING_2_CLOUD && hasArrived(a)) {
+			arriveAtServer(a, getCloudServerAt(a.getPos()));
+		}
+	}
+
+	/**
+	 * Publish how full the payload pool is, and how many payloads had to be
+	 * generated because it was empty, on the cloud server.
+	 */
+	private void updatePayloadPoolMetrics() {
+		cloudServer.set(PAYLOADPOOLFILL, new Text(payloadPool.getFill() + "/"
+				+ payloadPool.getCapacity() + " (average "
+				+ String.format("%.1f", payloadPool.getAverageFill()) + ")"));
+		cloudServer.set(PAYLOADPOOLMISSES, new Text(payloadPool.getMisses()
+				+ "/" + payloadPool.getTakes()));
 	}
 
 	/**
@@ -229,54 +594,27 @@ public class AgentModel extends BaseAgentModel {
 		try {
 			switch ((Activity) a.get(ACTIVITY)) {
 			case ONHOLD:
-				if(a.getPos()==originPlace.getPos())
+				if(a.getPos()==originPlace.getPos() && !emissions.isOpen(originPlace.getType()))
 				{
-					if(originPlace.getName().contains("Edge"))
-					{
-						reducePackageData(a);
-					}
-					a.setVisible(true);
-					Place nearestFog = getNearestFogServer(a);
-					goToFog(a, nearestFog);
+					emit(a);
 				}
 				break;
 			case GOING_2_CLOUD:
-				if(a.isAtDestination())
+				if(hasArrived(a))
 				{
-					Place currentLocation = cloudServer;
-					int packageSize = Integer.parseInt(a.get(PSIZE).toString());
-					if(originPlace.getName().contains("House"))
-					{
-						updateReceivedDataFromAPP1(currentLocation, packageSize, null);
-					}
-					else
-					{
-						updateReceivedDataFromAPP2(currentLocation, packageSize, null);
-					}
-					Place newOrigin = getRandomPlaceEqualsToOrigin(a);
-					setOrigin(a, newOrigin);
-					sendToOrigin(a);
+					arriveAtServer(a, getCloudServerAt(a.getPos()));
 				}
 				break;
 			case GOING_2_FOG:
-				if(a.isAtDestination())
+				if(hasArrived(a))
 				{
-					Place currentLocation = getNearestFogServer(a);
-					int packageSize = 0;
-					if(originPlace.getName().contains("House"))
-					{
-						reducePackageData(a);
-						packageSize = Integer.parseInt(a.get(PSIZE).toString());
-						updateReceivedDataFromAPP1(currentLocation, packageSize, a.get(PDATA));
-					}
-					else
-					{
-						packageSize = Integer.parseInt(a.get(PSIZE).toString());
-						updateReceivedDataFromAPP2(currentLocation, packageSize, a.get(PDATA));
-					}
-					goToCloud(a);
+					// The agent forgets its destination once it reaches it, and stands on its fog server.
+					arriveAtServer(a, nearestFogServers.getNearest(a.getPos()));
 				}
 				break;
+			case QUEUED_AT_FOG:
+			case QUEUED_AT_CLOUD:
+				break; // The server takes it out of its queue
 			default:
 				throw new RuntimeException("Unknown Activity");
 			}
@@ -286,6 +624,224 @@ public class AgentModel extends BaseAgentModel {
 		}
 	}
 	
+	/**
+	 * Hand a package over to the server it reached. The package is served
+	 * right away if the server has no service rate, and otherwise waits in
+	 * its queue. If the queue is full, the package is dropped, waits at the
+	 * server to try again in the next iteration, or goes to another fog
+	 * server, as the tier is configured. The cloud server has nowhere to
+	 * redirect packages to, so they wait instead. A dropped fog batch is
+	 * lost, and its agent goes back to its fog server.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param server the fog or cloud server it reached.
+	 */
+	private void arriveAtServer(Agent a, Place server) {
+		stampArrival(a);
+		ServiceQueue queue = (ServiceQueue) server.get(SERVICEQUEUE);
+		if (queue.isImmediate()) {
+			serve(a, server);
+		} else if (queue.offer(a)) {
+			a.set(ACTIVITY, isCloudServer(server) ? Activity.QUEUED_AT_CLOUD : Activity.QUEUED_AT_FOG);
+		} else if (queue.getOverflow() == ServiceQueue.Overflow.DROP) {
+			queue.countDropped();
+			releaseFog(a);
+			if (isFogBatch(a)) {
+				parkFogBatch(a);
+			} else {
+				Place newOrigin = getRandomPlaceEqualsToOrigin(a);
+				setOrigin(a, newOrigin);
+				sendToOrigin(a);
+			}
+		} else if (queue.getOverflow() == ServiceQueue.Overflow.REDIRECT && !isCloudServer(server)
+				&& nearestFogServers.getPlaces().length > 1) {
+			queue.countRedirected();
+			releaseFog(a);
+			goToFog(a, getOtherFogServer(server), Hop.FOG_TO_FOG);
+		} else {
+			queue.countBlocked();
+		}
+	}
+
+	/**
+	 * Let each server serve as many of the packages waiting in its queue as
+	 * its service rate allows in this iteration.
+	 */
+	private void serveQueues() {
+		for (int i = 0; i < serviceQueues.length; i++) {
+			ServiceQueue queue = serviceQueues[i];
+			if (queue.isImmediate()) {
+				continue;
+			}
+			queue.startIteration();
+			Agent a;
+			while ((a = queue.poll()) != null) {
+				serve(a, servers[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return true if a server has packages waiting in its queue, or work
+	 *         left from its reductions.
+	 */
+	private boolean isServing() {
+		for (ServiceQueue queue : serviceQueues) {
+			if (queue.isBusy()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Process a package the server is done with.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param server the fog or cloud server that served it.
+	 */
+	private void serve(Agent a, Place server) {
+		double arrivedAt = ((Transit) a.get(TRANSIT)).getArrivedAt();
+		if (isCloudServer(server)) {
+			latency.record("tier cloud", now() - arrivedAt);
+			serveAtCloud(a, server);
+		} else {
+			latency.record("tier fog", now() - arrivedAt);
+			serveAtFog(a, server);
+		}
+	}
+
+	/**
+	 * Count the package at the cloud and send a new package from a new
+	 * origin. A fog batch goes back to its fog server instead.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param currentLocation the cloud server that ingested it.
+	 */
+	private void serveAtCloud(Agent a, Place currentLocation) {
+		int packageSize = ((IntegerNumber) a.get(PSIZE)).getNumber();
+		ingest(currentLocation, packageSize);
+		if (a.get(SENDER) == Application.APP1) {
+			updateReceivedDataFromAPP1(currentLocation, packageSize, null);
+		} else {
+			updateReceivedDataFromAPP2(currentLocation, packageSize, null);
+		}
+		if (isFogBatch(a)) {
+			latency.record("batch", now() - ((Transit) a.get(TRANSIT)).getTripStartedAt());
+			parkFogBatch(a);
+			return;
+		}
+		if (!((PackagePayload) a.get(PDATA)).isReduced()) {
+			reduceAt(a, Tier.CLOUD, currentLocation);
+		}
+		recordTrip(a);
+		Place newOrigin = getRandomPlaceEqualsToOrigin(a);
+		setOrigin(a, newOrigin);
+		sendToOrigin(a);
+	}
+
+	/**
+	 * Reduce and count the package at the fog server, and either aggregate
+	 * it or send it to the cloud. The packages placed at the cloud are sent
+	 * there still in their original form, even when the fog servers
+	 * aggregate, since only reduced values can be rolled up.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param currentLocation the fog server.
+	 */
+	private void serveAtFog(Agent a, Place currentLocation) {
+		int packageSize = 0;
+		if (!((PackagePayload) a.get(PDATA)).isReduced() && a.get(PLACEMENT) != Tier.CLOUD) {
+			reduceAt(a, Tier.FOG, currentLocation);
+		}
+		boolean app1 = a.get(SENDER) == Application.APP1;
+		if (app1) {
+			packageSize = ((IntegerNumber) a.get(PSIZE)).getNumber();
+			updateReceivedDataFromAPP1(currentLocation, packageSize, a.get(PDATA));
+		} else {
+			packageSize = ((IntegerNumber) a.get(PSIZE)).getNumber();
+			updateReceivedDataFromAPP2(currentLocation, packageSize, a.get(PDATA));
+		}
+		releaseFog(a);
+		if (aggregationWindow > 0 && a.get(PLACEMENT) != Tier.CLOUD) {
+			aggregate(currentLocation, a, app1);
+			recordTrip(a);
+			Place newOrigin = getRandomPlaceEqualsToOrigin(a);
+			setOrigin(a, newOrigin);
+			sendToOrigin(a);
+		} else {
+			goToCloud(a);
+		}
+	}
+
+	/**
+	 * Tell the fog selection policy that a package is done with the fog
+	 * server it chose for the package, which is kept as its temporary
+	 * destination until then.
+	 * 
+	 * @param a the Agent that represents the package.
+	 */
+	private void releaseFog(Agent a) {
+		if (a.get(TEMPDEST) instanceof Place) {
+			fogSelection.release((Place) a.get(TEMPDEST));
+			a.set(TEMPDEST, NONE);
+		}
+	}
+
+	/**
+	 * Stamp the arrival of the package at the end of its hop, the first
+	 * time it's seen there, recording the latency of the hop.
+	 * 
+	 * @param a the Agent that represents the package.
+	 */
+	private void stampArrival(Agent a) {
+		Transit transit = (Transit) a.get(TRANSIT);
+		if (!transit.isStamped()) {
+			transit = transit.stamp(now());
+			a.set(TRANSIT, transit);
+			latency.record("hop " + transit.getHop(), transit.getArrivedAt() - transit.getDepartedAt());
+		}
+	}
+
+	/**
+	 * Record the latency of a trip that's over, from the origin of the
+	 * package, for its application and the form it left the origin in.
+	 * 
+	 * @param a the Agent that represents the package.
+	 */
+	private void recordTrip(Agent a) {
+		Transit transit = (Transit) a.get(TRANSIT);
+		double tripLatency = now() - transit.getTripStartedAt() + takeComputeTime(a);
+		latency.record("app " + a.get(SENDER), tripLatency);
+		latency.record(transit.isReducedTrip() ? "form reduced" : "form original", tripLatency);
+		latency.record("placement " + a.get(PLACEMENT), tripLatency);
+		trips++;
+		tripsSeconds += tripLatency;
+	}
+
+	/**
+	 * Get the network clock the latencies are measured with: the time of the
+	 * arrival being handled in the discrete-event transport, and the network
+	 * time the past iterations animated otherwise.
+	 * 
+	 * @return the network clock, in seconds.
+	 */
+	private double now() {
+		return arrivals != null ? arrivals.getClock() : iteration * linkModel.getTimestep();
+	}
+
+	/**
+	 * Pick a random fog server other than the one provided.
+	 * 
+	 * @param fogServer the fog server to avoid.
+	 * @return another fog server.
+	 */
+	private Place getOtherFogServer(Place fogServer) {
+		Place[] fogServers = nearestFogServers.getPlaces();
+		Place other = fogServers[getRandomInt(fogServers.length - 1)];
+		return other == fogServer ? fogServers[fogServers.length - 1] : other;
+	}
+
 	/**
 	 * Handle the package that will handle the interoperability
 	 *  between the applications in the simulation.
@@ -303,59 +859,91 @@ public class AgentModel extends BaseAgentModel {
 				if(a.getPos()==originPlace.getPos())
 				{
 					Place interoperabilityTarget = (Place) a.get(FOGTARGET);
-					if(!interoperabilityTarget.get(APP1LASTPACKAGE).toString().equals("none"))
+					if(!(interoperabilityTarget.get(APP1LASTPACKAGE) instanceof PackagePayload))
 					{
-						a.setVisible(true);
-						Place nearestFog = getNearestFogServer(a);
-						a.set(TEMPDEST, nearestFog);
-						goToFog(a, nearestFog);
+						restartInteroperability(a);
+					}
+					else if(!acquireInteroperabilitySlot(originPlace))
+					{
+						interoperabilityThrottled++; // Wait for a request of the edge server to end
 					}
 					else
 					{
-						restartInteroperability(a);
+						interoperabilityRequests++;
+						a.setVisible(true);
+						Place selectedFog = fogSelection.select(a);
+						a.set(TEMPDEST, selectedFog);
+						goToFog(a, selectedFog, Hop.EDGE_TO_FOG);
 					}
 				}
 				break;
 			case GOING_2_FOG:
-				if(a.isAtDestination())
+				if(hasArrived(a))
 				{
+					stampArrival(a);
 					Place tempDestination = (Place) a.get(TEMPDEST);
+					if(tempDestination.getType().equals("Fog"))
+					{
+						fogSelection.release(tempDestination); // The request reached the fog server chosen for it
+					}
 					if(tempDestination.equals(a.get(FOGTARGET)))
 					{
-						a.set(PDATA, tempDestination.get(APP1LASTPACKAGE));
-						a.set(PSIZE,new Text("16"));
+						a.set(INTEROPERABILITYPATH, InteroperabilityPath.LOCAL);
+						setPackageData(a, (PackagePayload) tempDestination.get(APP1LASTPACKAGE));
 						goToEdgeServer(a, (Place) a.get(ORIGIN));
 					}
 					else if(tempDestination.getType().equals("Fog"))
 					{
-						goToCloud(a);
+						requestFromOtherFog(a, tempDestination);
 					}
 					else
 					{
+						// The reply of the cloud or the peer, which the local fog server shares.
+						Place fogServer = nearestFogServers.getNearest(a.getPos());
+						PackagePayload payload = (PackagePayload) a.get(PDATA);
+						((InteroperabilityCache) fogServer.get(INTEROPERABILITYCACHE))
+								.put((Place) a.get(FOGTARGET), payload, now());
+						releaseCoalesced(fogServer, (Place) a.get(FOGTARGET), payload);
 						goToEdgeServer(a, tempDestination);
 					}
 				}
 				break;
+			case GOING_2_PEER_FOG:
+				if(hasArrived(a))
+				{
+					stampArrival(a);
+					Place localFog = (Place) a.get(TEMPDEST);
+					setPackageData(a, (PackagePayload) ((Place) a.get(FOGTARGET)).get(APP1LASTPACKAGE));
+					a.set(TEMPDEST, a.get(ORIGIN));
+					goToFog(a, localFog, Hop.FOG_TO_FOG);
+				}
+				break;
+			case COALESCED:
+				break; // The request it joined brings its data
 			case GOING_2_CLOUD:
-				if(a.isAtDestination())
+				if(hasArrived(a))
 				{
+					stampArrival(a);
 					Place fogTarget = (Place) a.get(FOGTARGET);
 					Place tempDestination = (Place) a.get(TEMPDEST);
-					a.set(PDATA, fogTarget.get(APP1LASTPACKAGE));
-					a.set(PSIZE,new Text("16"));
+					setPackageData(a, (PackagePayload) fogTarget.get(APP1LASTPACKAGE));
 					a.set(TEMPDEST, a.get(ORIGIN));
-					goToFog(a, tempDestination);
+					goToFog(a, tempDestination, Hop.CLOUD_TO_FOG);
 				}
 				break;
 			case GOING_2_EDGE_SERVER:
-				if(a.isAtDestination())
+				if(hasArrived(a))
 				{
+					stampArrival(a);
+					recordInteroperability(a);
+					subscriptions.recordPollDelivery((PackagePayload) a.get(PDATA));
 					Place destination = (Place) a.get(ORIGIN);
 					destination.set(RINTEROPERABILITYPACK, a.get(PDATA));
 					
 					expandPackageData(a);
 					
 					destination.set(INTEROPERABILITYPACK, a.get(PDATA));
+					releaseInteroperabilitySlot(destination);
 					restartInteroperability(a);
 				}
 				break;
@@ -369,55 +957,464 @@ public class AgentModel extends BaseAgentModel {
 	}
 
 	/**
-	 * Send the agent to a fog server.
+	 * Get the data of another fog server for a request that reached its
+	 * local fog server: from the cache of the fog server if it's fresh,
+	 * from a request for the same data already on its way if coalescing is
+	 * on, from the peer the fog directory points to if the peer path is on,
+	 * and from the cloud otherwise.
+	 * 
+	 * @param a the requester.
+	 * @param fogServer the local fog server.
+	 */
+	private void requestFromOtherFog(Agent a, Place fogServer) {
+		Place fogTarget = (Place) a.get(FOGTARGET);
+		PackagePayload cached = ((InteroperabilityCache) fogServer.get(INTEROPERABILITYCACHE)).get(fogTarget, now());
+		if (cached != null) {
+			interoperabilityCacheHits++;
+			setPackageData(a, cached);
+			a.set(TEMPDEST, a.get(ORIGIN));
+			a.set(INTEROPERABILITYPATH, InteroperabilityPath.CACHE);
+			goToEdgeServer(a, (Place) a.get(ORIGIN));
+			return;
+		}
+		if (coalesceInteroperability) {
+			String request = fogServer.getName() + ">" + fogTarget.getName();
+			ArrayList<Agent> followers = coalescedRequests.get(request);
+			if (followers != null) {
+				interoperabilityCoalesced++;
+				followers.add(a);
+				a.set(INTEROPERABILITYPATH, InteroperabilityPath.COALESCED);
+				a.set(ACTIVITY, Activity.COALESCED);
+				return;
+			}
+			coalescedRequests.put(request, new ArrayList<Agent>());
+		}
+		Place peer = peerInteroperability ? fogDirectory.lookup(fogTarget) : null;
+		if (peer != null) {
+			interoperabilityPeerTrips++;
+			a.set(INTEROPERABILITYPATH, InteroperabilityPath.PEER);
+			a.set(ACTIVITY, Activity.GOING_2_PEER_FOG);
+			depart(a, peer, Hop.FOG_TO_FOG);
+			return;
+		}
+		interoperabilityCloudTrips++;
+		a.set(INTEROPERABILITYPATH, InteroperabilityPath.CLOUD);
+		goToCloud(a);
+	}
+
+	/**
+	 * Record the latency and the hops of an interoperability request that
+	 * got back to its edge server, overall and for the path it took.
+	 * 
+	 * @param a the requester.
+	 */
+	private void recordInteroperability(Agent a) {
+		Transit transit = (Transit) a.get(TRANSIT);
+		InteroperabilityPath path = (InteroperabilityPath) a.get(INTEROPERABILITYPATH);
+		double roundTrip = now() - transit.getTripStartedAt();
+		latency.record("interoperability", roundTrip);
+		latency.record("interoperability " + path, roundTrip);
+		interoperabilityPathRequests[path.ordinal()]++;
+		interoperabilityPathHops[path.ordinal()] += transit.getTripHops();
+	}
+
+	/**
+	 * Hand the data the cloud or the peer sent to the requests that joined
+	 * the one that went to get it, and send them back to their edge servers.
+	 * 
+	 * @param fogServer the local fog server.
+	 * @param fogTarget the fog server the data comes from.
+	 * @param payload the data.
+	 */
+	private void releaseCoalesced(Place fogServer, Place fogTarget, PackagePayload payload) {
+		if (!coalesceInteroperability) {
+			return;
+		}
+		ArrayList<Agent> followers = coalescedRequests.remove(fogServer.getName() + ">" + fogTarget.getName());
+		if (followers == null) {
+			return;
+		}
+		for (Agent follower : followers) {
+			setPackageData(follower, payload);
+			follower.set(TEMPDEST, follower.get(ORIGIN));
+			goToEdgeServer(follower, (Place) follower.get(ORIGIN));
+		}
+	}
+
+	/**
+	 * Start a request from an edge server, if it has fewer requests on
+	 * their way than the limit per edge server.
+	 * 
+	 * @param edgeServer the edge server.
+	 * @return false if the edge server is at its limit.
+	 */
+	private boolean acquireInteroperabilitySlot(Place edgeServer) {
+		Integer inFlight = interoperabilityInFlight.get(edgeServer);
+		int requests = inFlight == null ? 0 : inFlight;
+		if (interoperabilityPerEdge > 0 && requests >= interoperabilityPerEdge) {
+			return false;
+		}
+		interoperabilityInFlight.put(edgeServer, requests + 1);
+		return true;
+	}
+
+	/**
+	 * End a request of an edge server.
+	 * 
+	 * @param edgeServer the edge server.
+	 */
+	private void releaseInteroperabilitySlot(Place edgeServer) {
+		Integer inFlight = interoperabilityInFlight.get(edgeServer);
+		if (inFlight != null) {
+			interoperabilityInFlight.put(edgeServer, inFlight - 1);
+		}
+	}
+
+	/**
+	 * Add the package to the aggregation window of the fog server
+	 * instead of sending it to the cloud.
+	 * 
+	 * @param fogServer the fog server the package reached.
+	 * @param a the Agent that represents the package.
+	 * @param app1 true if the package comes from the application 1.
+	 */
+	private void aggregate(Place fogServer, Agent a, boolean app1) {
+		HashMap<Place, FogAggregator> aggregators = app1 ? app1Aggregators : app2Aggregators;
+		FogAggregator aggregator = aggregators.get(fogServer);
+		if (aggregator == null) {
+			aggregator = new FogAggregator(codec, aggregationLevels);
+			aggregators.put(fogServer, aggregator);
+		}
+		aggregator.add((PackagePayload) a.get(PDATA));
+	}
+
+	/**
+	 * Close the aggregation window of the fog servers, sending one batch
+	 * to the cloud from each fog server that aggregated packages. The batch
+	 * goes through the fog-cloud link and the queue of the cloud server
+	 * like a package. A fog server whose previous batch is still on its way
+	 * keeps its window open until the next flush.
+	 * 
+	 * @param aggregators the aggregation stages of one application.
+	 * @param app1 true if they belong to the application 1.
+	 */
+	private void flushFogAggregators(HashMap<Place, FogAggregator> aggregators, boolean app1) {
+		for (Map.Entry<Place, FogAggregator> entry : aggregators.entrySet()) {
+			FogAggregator aggregator = entry.getValue();
+			Agent batch = (app1 ? app1Batches : app2Batches).get(entry.getKey());
+			if (aggregator.getPackages() == 0 || batch.get(ACTIVITY) != Activity.ONHOLD) {
+				continue;
+			}
+			aggregatedPackages += aggregator.getPackages();
+			aggregatedSize += aggregator.getPackagesSize();
+			int batchSize = aggregator.flush();
+			batches++;
+			batchesSize += batchSize;
+			sendFogBatch(batch, batchSize);
+		}
+	}
+
+	/**
+	 * Send a batch from the fog server of its agent to the cloud server of
+	 * its partition, as a new trip.
+	 * 
+	 * @param a the agent that carries the batch.
+	 * @param batchSize the size of the batch.
+	 */
+	private void sendFogBatch(final Agent a, final int batchSize) {
+		Place fogServer = (Place) a.get(ORIGIN);
+		Place batchCloud = cloudPartitioner.select(null, fogServer);
+		cloudDistance[getCloudIndex(batchCloud)] += batchCloud.distanceFrom(fogServer.getPos()) / 10;
+		a.set(PSIZE, new IntegerNumber(batchSize));
+		a.set(TRANSIT, NONE);
+		a.set(ACTIVITY, Activity.GOING_2_CLOUD);
+		a.setVisible(true);
+		depart(a, batchCloud, Hop.FOG_TO_CLOUD);
+	}
+
+	/**
+	 * Put the agent of a fog batch back at its fog server, to wait for the
+	 * next batch.
+	 * 
+	 * @param a the agent that carries the batch.
+	 */
+	private void parkFogBatch(final Agent a) {
+		a.setPos(((Place) a.get(ORIGIN)).getPos());
+		a.setVisible(false);
+		a.set(ACTIVITY, Activity.ONHOLD);
+	}
+
+	/**
+	 * Send the agent to an edge server.
 	 * @param edgeServer the edge server the agent is sent to.
 	 * 
 	 */
 	private void goToEdgeServer(final Agent a, Place edgeServer) {
-		a.setDestination(edgeServer);
 		a.set(ACTIVITY, Activity.GOING_2_EDGE_SERVER);
+		depart(a, edgeServer, Hop.FOG_TO_EDGE);
 	}
 
 	/**
 	 * Send the agent to a fog server.
 	 * @param fogServer the fog server the agent is sent to.
+	 * @param hop the hop the agent goes through.
 	 * 
 	 */
-	private void goToFog(final Agent a, Place fogServer) {
-		a.setDestination(fogServer);
+	private void goToFog(final Agent a, Place fogServer, Hop hop) {
 		a.set(ACTIVITY, Activity.GOING_2_FOG);
+		depart(a, fogServer, hop);
 	}
 
 	/**
-	 * Send the agent to a cloud server.
+	 * Send the agent from the fog server it's at to the cloud server of its
+	 * partition.
 	 * 
 	 */
 	private void goToCloud(final Agent a) {
-		a.setDestination(cloudServer);
 		a.set(ACTIVITY, Activity.GOING_2_CLOUD);
+		Place cloud = cloudPartitioner.select(a, nearestFogServers.getNearest(a.getPos()));
+		if(!isInteroperabilityRequester(a))
+		{
+			// The gradient counts 10 per straight step.
+			cloudDistance[getCloudIndex(cloud)] += cloud.distanceFrom(a.getPos()) / 10;
+		}
+		depart(a, cloud, Hop.FOG_TO_CLOUD);
 	}
 
 	/**
-	 * Send the agent back to origin.
+	 * @param server a fog or cloud server.
+	 * @return true if it's a cloud server.
+	 */
+	private boolean isCloudServer(final Place server) {
+		return getCloudIndex(server) >= 0;
+	}
+
+	/**
+	 * @param server a server.
+	 * @return its position in cloudServers, or -1 if it isn't a cloud
+	 *         server.
+	 */
+	private int getCloudIndex(final Place server) {
+		for (int i = 0; i < cloudServers.length; i++) {
+			if (cloudServers[i] == server) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the cloud server a package reached.
+	 * 
+	 * @param pos the position of the package.
+	 * @return the cloud server at that position.
+	 */
+	private Place getCloudServerAt(final Position pos) {
+		for (Place cloud : cloudServers) {
+			if (cloud.getPos().equals(pos)) {
+				return cloud;
+			}
+		}
+		throw new RuntimeException("No cloud server at " + pos);
+	}
+
+	/**
+	 * Count what a cloud server ingested, and replicate it to the next
+	 * cloud servers, through the cloud-cloud link.
+	 * 
+	 * @param cloud the cloud server.
+	 * @param bytes the size it ingested.
+	 */
+	private void ingest(final Place cloud, final int bytes) {
+		int index = getCloudIndex(cloud);
+		cloudPackages[index]++;
+		cloudBytes[index] += bytes;
+		for (int i = 1; i <= cloudReplicas; i++) {
+			int replica = (index + i) % cloudServers.length;
+			cloudReplicasReceived[replica]++;
+			cloudReplicaBytes[replica] += bytes;
+			hopBytes[Hop.CLOUD_TO_CLOUD.ordinal()] += bytes;
+			latency.record("replication", linkModel.getTransitTime(Hop.CLOUD_TO_CLOUD, bytes));
+		}
+	}
+
+	/**
+	 * Publish what each cloud server ingested and received as replicas,
+	 * with the mean distance its packages came from, and the share of the
+	 * busiest cloud server, to find the hot spots of the partitioning.
+	 */
+	private void updateCloudMetrics() {
+		long total = 0;
+		int busiest = 0;
+		for (int i = 0; i < cloudServers.length; i++) {
+			total += cloudPackages[i];
+			if (cloudPackages[i] > cloudPackages[busiest]) {
+				busiest = i;
+			}
+			cloudServers[i].set(CLOUDINGESTION, new Text(cloudPackages[i] + " packages, " + cloudBytes[i]
+					+ " B, mean fog distance " + String.format("%.1f", cloudPackages[i] == 0 ? 0.0
+					: (double) cloudDistance[i] / cloudPackages[i]) + "; " + cloudReplicasReceived[i]
+					+ " replicas, " + cloudReplicaBytes[i] + " B"));
+		}
+		cloudServer.set(CLOUDSHARDS, new Text(cloudPartitioner.getName() + " over " + cloudServers.length
+				+ " clouds, " + cloudReplicas + " replicas; busiest " + cloudServers[busiest].getName() + " "
+				+ String.format("%.1f%%", total == 0 ? 0.0 : 100.0 * cloudPackages[busiest] / total)));
+	}
+
+	/**
+	 * Schedule the arrival of the agent at its destination, after the
+	 * transit time its package takes through the link of the hop. The agent
+	 * either moves on the map at the speed that makes the movement last that
+	 * long, or, in the discrete-event transport, waits for its arrival event
+	 * without moving.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param destination where the agent is sent.
+	 * @param hop the hop the agent goes through.
+	 */
+	private void depart(final Agent a, Place destination, Hop hop) {
+		int bytes = ((IntegerNumber) a.get(PSIZE)).getNumber();
+		double seconds = linkModel.getTransitTime(hop, bytes) + takeComputeTime(a);
+		if (isInteroperabilityRequester(a)) {
+			subscriptions.recordPollHop(bytes);
+		} else {
+			hopBytes[hop.ordinal()] += bytes;
+		}
+		boolean reduced = a.get(PDATA) instanceof PackagePayload && ((PackagePayload) a.get(PDATA)).isReduced();
+		if (arrivals != null) {
+			a.set(TRANSIT, Transit.start(a.get(TRANSIT), hop, seconds, Long.MAX_VALUE, now(), reduced));
+			arrivals.schedule(a, destination, seconds);
+			return;
+		}
+		a.setDestination(destination);
+		int iterations = linkModel.getIterations(seconds);
+		a.set(TRANSIT, Transit.start(a.get(TRANSIT), hop, seconds, iteration + iterations, now(), reduced));
+		int distance = destination.distanceFrom(a.getPos());
+		if (distance == Gradient.UNREACHABLE) {
+			throw new RuntimeException(a + " can't reach " + destination);
+		}
+		// The gradient counts 10 per straight step, and a step moves 1.
+		int steps = (distance + 9) / 10;
+		a.setSpeed(Math.max(1, (steps + iterations - 1) / iterations));
+	}
+
+	/**
+	 * Fire the arrivals of this iteration, in the order of their network
+	 * time. Each package is put at its destination and handled right away,
+	 * so the next hop it starts can arrive in the same iteration. The clock
+	 * only jumps ahead to the next arrival or emission while the servers
+	 * have no packages waiting, since they serve a rate per iteration.
+	 */
+	private void fireArrivals() {
+		arrivals.startIteration(isServing() ? arrivals.getClock() : emissions.getNextTime() - startSeconds);
+		ArrivalQueue.Arrival arrival;
+		while ((arrival = arrivals.poll()) != null) {
+			Agent a = arrival.getAgent();
+			a.setPos(arrival.getDestination().getPos());
+			a.set(TRANSIT, ((Transit) a.get(TRANSIT)).arrived(iteration));
+			handle(a);
+		}
+	}
+
+	/**
+	 * Find out if the agent reached its destination and the transit time of
+	 * its hop is over.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @return true if the agent arrived.
+	 */
+	private boolean hasArrived(final Agent a) {
+		return a.isAtDestination() && iteration >= ((Transit) a.get(TRANSIT)).getArrival();
+	}
+
+	/**
+	 * Send the agent back to origin. The packages of an open-loop origin
+	 * type wait there until an origin emits them.
 	 * 
 	 */
 	private void sendToOrigin(final Agent a) {
-		String packageData;
-		Integer packageSize;
-		
-		packageData = DiseaseOntologyController.getInstance().getRandomSetOfValues();
-		packageSize = packageData.length()-4;
-		int packageSpeed = calculateSpeed(packageSize);
-		
 		Place originPlace = (Place) a.get(ORIGIN);
 		Position originPos = originPlace.getPos();
 		a.setImage("CarBlue");
-		a.set(PDATA, new Text(packageData));
-		a.set(PSIZE, new Text(packageSize.toString()));
+		setPackageData(a, payloadPool.take());
 		a.setPos(originPos);
 		a.setVisible(false);
 		a.set(ACTIVITY, Activity.ONHOLD);
-		a.setSpeed(packageSpeed);
+		if(emissions.isOpen(originPlace.getType()))
+		{
+			emissions.release(a, originPlace.getType());
+		}
+	}
+
+	/**
+	 * Send a package from its origin to the fog server, reduced first if
+	 * the placement policy places its reduction at the edge.
+	 * 
+	 * @param a the Agent that represents the package, at its origin.
+	 */
+	private void emit(final Agent a) {
+		Place originPlace = (Place) a.get(ORIGIN);
+		Place fogServer = fogSelection.select(a);
+		a.set(TEMPDEST, fogServer);
+		Hop hop = Hop.fromOrigin(originPlace.getType());
+		Tier tier = placement.place(hop, (PackagePayload) a.get(PDATA),
+				(ServiceQueue) fogServer.get(SERVICEQUEUE),
+				(ServiceQueue) cloudPartitioner.select(a, fogServer).get(SERVICEQUEUE));
+		a.set(PLACEMENT, tier);
+		placements[tier.ordinal()]++;
+		if (tier == Tier.EDGE) {
+			reduceAt(a, Tier.EDGE, null);
+		}
+		a.setVisible(true);
+		goToFog(a, fogServer, hop);
+	}
+
+	/**
+	 * Send the packages of the open-loop origins whose emission is due by
+	 * the network clock, counted from the start of the simulation, and
+	 * publish the emissions on the cloud server. The arrival processes run
+	 * on the same clock as the links and queues, so their rates are
+	 * packages per network second.
+	 */
+	private void emitDue() {
+		EmissionSchedule.Emission emission;
+		while ((emission = emissions.poll(startSeconds + now())) != null) {
+			Agent a = emission.getAgent();
+			setOrigin(a, emission.getOrigin());
+			a.setPos(emission.getOrigin().getPos());
+			if (emission.getRecord() != null) {
+				replay(a, emission.getRecord());
+			}
+			emit(a);
+		}
+		cloudServer.set(ARRIVALPROCESSES, new Text(emissions.toString()));
+	}
+
+	/**
+	 * Give a package the application, values and size of a trace record.
+	 * The values are drawn at random when the record has none, and the
+	 * size is counted from them when it has none.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param record the trace record.
+	 */
+	private void replay(final Agent a, final TraceRecord record) {
+		a.set(SENDER, record.getApplication() == 1 ? Application.APP1 : Application.APP2);
+		int[] values = record.getValues();
+		if (values != null) {
+			setPackageData(a, new PackagePayload(values));
+		}
+		if (record.getSize() > 0) {
+			a.set(PSIZE, new IntegerNumber(record.getSize()));
+		}
+	}
+
+	/**
+	 * @param time a simulation time.
+	 * @return the time, in seconds since the epoch.
+	 */
+	private static double seconds(final Calendar time) {
+		return time.getTimeInMillis() / 1000.0;
 	}
 	
 	/**
@@ -428,31 +1425,39 @@ public class AgentModel extends BaseAgentModel {
 	 */
 	private void restartInteroperability(final Agent a) {
 		
-		Place randomEdgeOrigin;
-		try {
-			Place randomFogForInteroperability = world.getRandomPlaceOfType("Fog");
-			randomEdgeOrigin = world.getRandomPlaceOfType("Edge");
-			Position originPos = randomEdgeOrigin.getPos();
+		Place randomFogForInteroperability = getRandomPlaceOfType("Fog");
+		Place randomEdgeOrigin = getRandomPlaceOfType("Edge");
+		Position originPos = randomEdgeOrigin.getPos();
 
-			a.setVisible(false);
-			a.setPos(originPos);
-			a.setImage("CarRed");
-			a.set(PDATA, new Text("none"));
-			a.set(PSIZE, new Text("none"));
-			a.set(ORIGIN, randomEdgeOrigin);
-			a.set(ACTIVITY, Activity.ONHOLD);
-			a.set(FOGTARGET, randomFogForInteroperability);
-			a.set(TEMPDEST, new Text("none"));
-			a.setSpeed(DEFAULT_SPEED);
-			
-			
-			
-		} catch (PlaceNotFoundException e) {
-			throw new RuntimeException("No Edge or Fog servers defined", e);
-		}
+		a.setVisible(false);
+		a.setPos(originPos);
+		a.setImage("CarRed");
+		a.set(PDATA, NONE);
+		a.set(PSIZE, new IntegerNumber(0));
+		a.set(ORIGIN, randomEdgeOrigin);
+		a.set(SENDER, Application.APP1);
+		a.set(ACTIVITY, Activity.ONHOLD);
+		a.set(FOGTARGET, randomFogForInteroperability);
+		clearTripFields(a);
+		a.setSpeed(DEFAULT_SPEED);
 		
 	}
 
+	/**
+	 * Reset the fields that describe a single trip of a package, so that
+	 * ordinary packages and interoperability requesters start out with the
+	 * same set of fields.
+	 * 
+	 * @param a the package to reset
+	 */
+	private void clearTripFields(final Agent a) {
+		a.set(TEMPDEST, NONE);
+		a.set(TRANSIT, NONE);
+		a.set(INTEROPERABILITYPATH, NONE);
+		a.set(PLACEMENT, NONE);
+		a.set(COMPUTE, new FloatNumber(0));
+	}
+
 	/**
 	 * Set the agent's new origin.
 	 * @param newOrigin the new origin given to the agent.
@@ -462,140 +1467,101 @@ public class AgentModel extends BaseAgentModel {
 		a.set(ORIGIN, newOrigin);
 	}
 	
+	/**
+	 * get a random Place of the same type as the origin of the Agent.
+	 * @param a the agent whose origin is used as reference.
+	 * @return the random Place.
+	 * 
+	 */
 	private Place getRandomPlaceEqualsToOrigin(Agent a)
 	{
 		Place originPlace = (Place) a.get(ORIGIN);
-		if(originPlace.getName().contains("Edge"))
-		{
-			return getRandomHospital();
-		}
-		else
-		{
-			return getRandomHouse();
-		}
+		return getRandomPlaceOfType(originPlace.getType());
 	}
+
 	/**
-	 * get a random Place from House or Edge.
+	 * get a random Place of a type, a single array read.
+	 * @param type the type of the place.
 	 * @return the random Place.
 	 * 
 	 */
-	private Place getRandomEdgePlace()
-	{
-		int quantEdgeTypes = EDGEPLACES.length;
-		int houseOrEdge = getRandomInt(quantEdgeTypes);
-		String placeName = EDGEPLACES[houseOrEdge];
-		Place randomPlace;
-		try {
-			randomPlace = world.getRandomPlaceOfType(placeName);
-		} catch (PlaceNotFoundException e) {
-			throw new RuntimeException("No houses or edge servers defined", e);
-		}
-		
-		return randomPlace;
+	private Place getRandomPlaceOfType(String type) {
+		Place[] places = getPlacesOfType(type);
+		return places[getRandomInt(places.length)];
 	}
-	
 
 	/**
-	 * get a Place from House.
-	 * @return the random Place.
+	 * get the Places of a type. The places of each type are copied the
+	 * first time they are needed.
+	 * @param type the type of the place.
+	 * @return the Places.
 	 * 
 	 */
-	private Place getRandomHospital()
-	{
-
-		String placeName = EDGEPLACES[1];
-		Place randomPlace;
-		try {
-			randomPlace = world.getRandomPlaceOfType(placeName);
-		} catch (PlaceNotFoundException e) {
-			throw new RuntimeException("No houses or edge servers defined", e);
+	private Place[] getPlacesOfType(String type) {
+		Place[] places = placesByType.get(type);
+		if (places == null) {
+			try {
+				places = world.getPlacesOfType(type).toArray(new Place[0]);
+			} catch (PlaceTypeUndefinedException e) {
+				throw new RuntimeException("No places of type " + type + " defined", e);
+			}
+			if (places.length == 0) {
+				throw new RuntimeException("No places of type " + type + " defined");
+			}
+			placesByType.put(type, places);
 		}
-		
-		return randomPlace;
+		return places;
 	}
-	
+
 	/**
-	 * get a Place from Edge.
-	 * @return the random Place.
+	 * Updates the reduced data in the package with 
+	 * the data in its original format.
 	 * 
+	 * @param a the Agent that represents the package.
 	 */
-	private Place getRandomHouse()
+	private void expandPackageData(Agent a)
 	{
-
-		String placeName = EDGEPLACES[0];
-		Place randomPlace;
-		try {
-			randomPlace = world.getRandomPlaceOfType(placeName);
-		} catch (PlaceNotFoundException e) {
-			throw new RuntimeException("No houses or edge servers defined", e);
-		}
-		
-		return randomPlace;
+		PackagePayload packageData = (PackagePayload) a.get(PDATA);
+		setPackageData(a, packageData.expand());
+		a.setImage("CarBlue");
 	}
+
+
 	/**
-	 * get the nearest fog server to the position of the Agent.
-	 * @param a the agent used to get the position as reference.
-	 * @return the Place of the nearest fog server.
+	 * Reduce the package at a tier, which takes the compute time of the
+	 * tier. The package only leaves once the reduction is done, so the
+	 * compute time is added to its next hop, or to its trip when it's
+	 * reduced at the cloud. A fog or cloud server is busy for that time,
+	 * which the packages in its queue wait for, while the edge servers
+	 * reduce their own packages.
 	 * 
+	 * @param a the Agent that represents the package.
+	 * @param tier the tier that reduces it.
+	 * @param server the fog or cloud server that reduces it, null at the edge.
 	 */
-	private Place getNearestFogServer(Agent a)
-	{
-		Position agentPos = a.getPos();
-		Place nearestFogServer;
-		
-		try {
-			nearestFogServer = world.getNearestPlaceOfType("Fog", agentPos);
-		} catch (PlaceTypeUndefinedException e) {
-			throw new RuntimeException("No houses or edge servers defined", e);
-		} 
-		
-		return nearestFogServer;
+	private void reduceAt(Agent a, Tier tier, Place server) {
+		double computeTime = placementCosts.getComputeTime(tier, ((IntegerNumber) a.get(PSIZE)).getNumber());
+		reducePackageData(a);
+		a.set(COMPUTE, new FloatNumber(((FloatNumber) a.get(COMPUTE)).getNumber() + computeTime));
+		if (server != null) {
+			((ServiceQueue) server.get(SERVICEQUEUE)).charge(computeTime / linkModel.getTimestep());
+		}
 	}
 
-	
 	/**
-	 * Updates the reduced data in the package with 
-	 * the data in its original format.
+	 * Take the compute time the package spent since its last hop.
 	 * 
 	 * @param a the Agent that represents the package.
+	 * @return the compute time, in network seconds.
 	 */
-	private void expandPackageData(Agent a)
-	{
-		String packageData = a.get(PDATA).toString();
-		String[] packageSplitData = packageData.split(";;");
-		String diseaseIDString = packageSplitData[0];
-		String diseaseDriverIDString = packageSplitData[1];
-		String symptomIDString = packageSplitData[2];
-		String transmissionIDString = packageSplitData[3];
-		
-		int diseaseID = Integer.parseInt(diseaseIDString),
-				diseaseDriverID = Integer.parseInt(diseaseDriverIDString),
-				symptomID = Integer.parseInt(symptomIDString),
-				transmissionID = Integer.parseInt(transmissionIDString);
-		
-		String originalDiseaseData = DiseaseOntologyController
-				.getInstance().getOriginalValue(diseaseID);
-		String originalDiseaseDriverData = DiseaseOntologyController
-				.getInstance().getOriginalValue(diseaseDriverID);
-		String originalSymptomData = DiseaseOntologyController
-				.getInstance().getOriginalValue(symptomID);
-		String originalTransmissionData = DiseaseOntologyController
-				.getInstance().getOriginalValue(transmissionID);
-		
-		String expandedData = originalDiseaseData.concat(";;")
-				.concat(originalDiseaseDriverData).concat(";;")
-				.concat(originalSymptomData).concat(";;")
-				.concat(originalTransmissionData);
-		
-		int originalDataSize = expandedData.length()-4;
-		int packageSpeed = calculateSpeed(originalDataSize);
-		a.set(PDATA, new Text(expandedData));
-		a.set(PSIZE, new Text(String.valueOf(originalDataSize)));
-		a.setSpeed(packageSpeed);
-		a.setImage("CarBlue");
+	private double takeComputeTime(Agent a) {
+		double computeTime = ((FloatNumber) a.get(COMPUTE)).getNumber();
+		if (computeTime != 0) {
+			a.set(COMPUTE, new FloatNumber(0));
+		}
+		return computeTime;
 	}
 
-
 	/**
 	 * Updates the data in the package with 
 	 * the data in its reduced format.
@@ -604,34 +1570,23 @@ public class AgentModel extends BaseAgentModel {
 	 */
 	private void reducePackageData(Agent a)
 	{
-		String packageData = a.get(PDATA).toString();
-		String[] packageSplitData = packageData.split(";;");
-		String diseaseLabel = packageSplitData[0];
-		String diseaseDriverLabel = packageSplitData[1];
-		String symptomLabel = packageSplitData[2];
-		String transmissionLabel = packageSplitData[3];
-		
-		int reducedDiseaseData = DiseaseOntologyController
-				.getInstance().getReducedDiseaseValue(diseaseLabel);
-		int reducedDiseaseDriverData = DiseaseOntologyController
-				.getInstance().getReducedDiseaseDriverValue(diseaseDriverLabel);
-		int reducedSymptomData = DiseaseOntologyController
-				.getInstance().getReducedSymptomValue(symptomLabel);
-		int reducedTransmissionData = DiseaseOntologyController
-				.getInstance().getReducedTranmissionValue(transmissionLabel);
-		
-		String reducedData = String.valueOf(reducedDiseaseData).concat(";;")
-				.concat(String.valueOf(reducedDiseaseDriverData)).concat(";;")
-				.concat(String.valueOf(reducedSymptomData)).concat(";;")
-				.concat(String.valueOf(reducedTransmissionData));
-		int reducedDataSize = 16;
-		int packageSpeed = calculateSpeed(reducedDataSize);
-		a.set(PDATA, new Text(reducedData));
-		a.set(PSIZE, new Text(String.valueOf(reducedDataSize)));
-		a.setSpeed(packageSpeed);
+		PackagePayload packageData = (PackagePayload) a.get(PDATA);
+		setPackageData(a, packageData.reduce(codec));
 		a.setImage("CarYellow");
 	}
 
+	/**
+	 * Put the data in the package, updating its size.
+	 * 
+	 * @param a the Agent that represents the package.
+	 * @param packageData the data the package transports.
+	 */
+	private void setPackageData(Agent a, PackagePayload packageData) {
+		int packageSize = packageData.getSize();
+		a.set(PDATA, packageData);
+		a.set(PSIZE, new IntegerNumber(packageSize));
+	}
+
 	/**
 	 * Update the amount of packages and the total amount of data the current
 	 * server received from the application 1.
@@ -643,16 +1598,12 @@ public class AgentModel extends BaseAgentModel {
 	{
 		if(currentLocation!=null)
 		{
-			int packsReceived = Integer.parseInt(currentLocation.get(APP1PACKAMOUNT).toString());
-			int totalSizeReceived = Integer.parseInt(currentLocation.get(APP1TOTALSIZE).toString());
-			packsReceived++;
-			totalSizeReceived=totalSizeReceived+dataSize;
-			currentLocation.set(APP1PACKAMOUNT, new Text(String.valueOf(packsReceived)));
-			currentLocation.set(APP1TOTALSIZE, new Text(String.valueOf(totalSizeReceived)));
+			((ServerMetrics) currentLocation.get(SERVERMETRICS)).addApp1Package(dataSize);
 			
 			if(receivedData!=null)
 			{
 				currentLocation.set(APP1LASTPACKAGE, receivedData);
+				fogDirectory.register(currentLocation);
 			}
 		}
 	}
@@ -668,12 +1619,7 @@ public class AgentModel extends BaseAgentModel {
 	{
 		if(currentLocation!=null)
 		{
-			int packsReceived = Integer.parseInt(currentLocation.get(APP2PACKAMOUNT).toString());
-			int totalSizeReceived = Integer.parseInt(currentLocation.get(APP2TOTALSIZE).toString());
-			packsReceived++;
-			totalSizeReceived=totalSizeReceived+dataSize;
-			currentLocation.set(APP2PACKAMOUNT, new Text(String.valueOf(packsReceived)));
-			currentLocation.set(APP2TOTALSIZE, new Text(String.valueOf(totalSizeReceived)));
+			((ServerMetrics) currentLocation.get(SERVERMETRICS)).addApp2Package(dataSize);
 			
 			if(receivedData!=null)
 			{
@@ -691,32 +1637,6 @@ public class AgentModel extends BaseAgentModel {
 	 */
 	private int getRandomInt(int upperLimit)
 	{
-		Random numberGenerator = new Random();
-		int randomNumber = (numberGenerator.nextInt(upperLimit));
-		return randomNumber;
-	}
-	
-	/**
-	 * Calculates the new speed of the package according with the size
-	 * of the data the package is transporting
-	 * 
-	 * @param dataSize An int representing the size of the data in bytes
-	 * @return The new speed as int
-	 */
-	private int calculateSpeed(int dataSize)
-	{
-		int newSpeed = DEFAULT_SPEED*16;
-		float decimalSpeed = (float)newSpeed /dataSize;
-		
-		newSpeed = Math.round(decimalSpeed);
-		
-		if(newSpeed>0)
-		{
-			return newSpeed;
-		}
-		else
-		{
-			return 1;
-		}
+		return ThreadLocalRandom.current().nextInt(upperLimit);
 	}
 }
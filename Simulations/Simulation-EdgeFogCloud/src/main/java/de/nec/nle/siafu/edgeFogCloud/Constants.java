@@ -34,7 +34,7 @@ public class Constants {
 	/** Default agent speed. */
 	public static final int DEFAULT_SPEED = 11;
 
-	/** Amount of packages. */
+	/** Amount of packages, when config.xml doesn't set packages.count. */
 	public static final int POPULATION = 100;
 
 	/** Possible Edge places to use in randomization. */
@@ -44,6 +44,14 @@ public class Constants {
 	 * The names of the fields in each place object.
 	 */
 	static class PlaceFields {
+		/** The counters of the packages and data the server received. */
+		public static final String SERVERMETRICS = "Server metrics";
+		/** The queue of the packages waiting to be served by the server. */
+		public static final String SERVICEQUEUE = "Service queue";
+		/** The packages waiting to be served, out of the capacity of the queue. */
+		public static final String QUEUEDEPTH = "Queue depth";
+		/** The share of its service rate the server used. */
+		public static final String QUEUEUTILIZATION = "Server utilization";
 		/** Amount of packages the server received from the application 1. */
 		public static final String APP1PACKAMOUNT = "Packages received from APP1";
 		/** Amount of packages the server received from the application 2. */
@@ -60,6 +68,32 @@ public class Constants {
 		public static final String INTEROPERABILITYPACK = "Interoperability package";
 		/** The data received through interoperability with the application 1 in its reduced format. */
 		public static final String RINTEROPERABILITYPACK = "Reduced Interoperability package";
+		/** The payloads ready in the payload pool, out of its capacity. */
+		public static final String PAYLOADPOOLFILL = "Payload pool fill";
+		/** The payloads generated because the payload pool was empty, out of the ones taken. */
+		public static final String PAYLOADPOOLMISSES = "Payload pool misses";
+		/** The data of other fog servers a fog server keeps for interoperability. */
+		public static final String INTEROPERABILITYCACHE = "Interoperability cache";
+		/** The interoperability requests and the cloud trips, coalescing and caching saved. */
+		public static final String INTEROPERABILITYTRAFFIC = "Interoperability traffic";
+		/** The requests, hops and latency of each interoperability path. */
+		public static final String INTEROPERABILITYPATHS = "Interoperability paths";
+		/** The median and 99th percentile of each latency histogram. */
+		public static final String LATENCY = "Latency percentiles";
+		/** The traffic and data age of the fog pushes, next to the ones of the polls. */
+		public static final String SUBSCRIPTIONS = "Push vs polling";
+		/** The arrival process of each origin type, and its emissions sent and missed. */
+		public static final String ARRIVALPROCESSES = "Arrival processes";
+		/** The placement policy, the packages reduced at each tier, their latency and bytes. */
+		public static final String PLACEMENTREPORT = "Placement";
+		/** The packages and bytes a cloud server ingested, their fog distance and its replicas. */
+		public static final String CLOUDINGESTION = "Cloud ingestion";
+		/** The partitioning of the cloud tier and its busiest cloud server. */
+		public static final String CLOUDSHARDS = "Cloud shards";
+		/** The data the fog aggregation kept from being sent to the cloud. */
+		public static final String AGGREGATIONSAVEDDATA = "Data saved by fog aggregation";
+		/** The arrivals at the cloud the fog aggregation saved. */
+		public static final String AGGREGATIONSAVEDARRIVALS = "Arrivals saved by fog aggregation";
 	}
 	
 	/**
@@ -87,6 +121,108 @@ public class Constants {
 		/** The sender of the data. */
 		public static final String TEMPDEST = "Temporary destination";
 
+		/** The path the interoperability request got its data through. */
+		public static final String INTEROPERABILITYPATH = "Interoperability path";
+
+		/** The hop the package is going through and its network time. */
+		public static final String TRANSIT = "Transit";
+
+		/** The tier the package is reduced at. */
+		public static final String PLACEMENT = "Reduced at";
+
+		/** The compute time the package spent since its last hop. */
+		public static final String COMPUTE = "Compute time";
+
+	}
+
+	/**
+	 * The applications that send packages. The application 1 sends the data the
+	 * Fog servers keep for interoperability, the application 2 data that is
+	 * reduced by the Edge server it starts from.
+	 */
+	enum Application implements Publishable {
+		/** The application 1. */
+		APP1("APP1"),
+		/** The application 2. */
+		APP2("APP2");
+
+		/** Human readable description of the application. */
+		private String description;
+
+		/**
+		 * Build an instance of Application which keeps a human readable
+		 * description for when it's flattened.
+		 * 
+		 * @param description the human readable description of the application
+		 */
+		private Application(final String description) {
+			this.description = description;
+		}
+
+		/**
+		 * Get the description of the application.
+		 * 
+		 * @return a string describing the application
+		 */
+		public String toString() {
+			return description;
+		}
+
+		/**
+		 * Flatten the description of the application.
+		 * 
+		 * @return a flatenned text with the description of the application
+		 */
+		public FlatData flatten() {
+			return new Text(description).flatten();
+		}
+	}
+
+	/**
+	 * The paths an interoperability request can get its data through.
+	 */
+	enum InteroperabilityPath implements Publishable {
+		/** The data was at the local fog server. */
+		LOCAL("local"),
+		/** The local fog server had the data cached. */
+		CACHE("cache"),
+		/** The request waited for an identical one. */
+		COALESCED("coalesced"),
+		/** The local fog server got the data through the cloud. */
+		CLOUD("cloud"),
+		/** The local fog server got the data from the peer that holds it. */
+		PEER("peer");
+
+		/** Human readable description of the path. */
+		private String description;
+
+		/**
+		 * Build an instance of InteroperabilityPath which keeps a human
+		 * readable description for when it's flattened.
+		 * 
+		 * @param description the human readable description of the path
+		 */
+		private InteroperabilityPath(final String description) {
+			this.description = description;
+		}
+
+		/**
+		 * Get the description of the path.
+		 * 
+		 * @return a string describing the path
+		 */
+		public String toString() {
+			return description;
+		}
+
+		/**
+		 * Flatten the description of the path.
+		 * 
+		 * @return a flatenned text with the description of the path
+		 */
+		public FlatData flatten() {
+			return new Text(description).flatten();
+		}
 	}
 
 	/**
@@ -106,7 +242,15 @@ public class Constants {
 		/** The agent is going to a fog server. */
 		GOING_2_FOG("Going2Fog"),
 		/** The agent is going to the cloud server. */
-		GOING_2_CLOUD("Going2Cloud");
+		GOING_2_CLOUD("Going2Cloud"),
+		/** The agent is waiting in the queue of a fog server. */
+		QUEUED_AT_FOG("Queued at fog"),
+		/** The agent is waiting in the queue of the cloud server. */
+		QUEUED_AT_CLOUD("Queued at cloud"),
+		/** The agent is going to the fog server that holds the data it wants. */
+		GOING_2_PEER_FOG("Going2PeerFog"),
+		/** The agent is waiting at a fog server for a request like its own. */
+		COALESCED("Coalesced");
 
 		/** Human readable description of the activity. */
 		private String description;
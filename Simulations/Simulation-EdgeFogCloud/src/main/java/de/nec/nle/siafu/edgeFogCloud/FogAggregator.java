@@ -0,0 +1,164 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.nec.nle.siafu.edgeFogCloud.codec.PayloadCodec;
+import de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController;
+
+/**
+ * The aggregation stage of one application at one fog server. Instead of
+ * forwarding each reduced package to the cloud, the fog server rolls its
+ * disease and symptom up to an ancestor class and counts the packages that
+ * end up with the same values. Once per window the counts are shipped to the
+ * cloud as a single batch: each distinct set of values, encoded with the
+ * reduction codec, followed by a four byte count.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class FogAggregator {
+
+	/**
+	 * The key in config.xml with the iterations in each aggregation window,
+	 * 0 (the default) to forward each package to the cloud.
+	 */
+	public static final String WINDOW_KEY = "aggregation[@window]";
+
+	/** The key in config.xml with how many superclasses values are rolled up, 1 by default. */
+	public static final String LEVELS_KEY = "aggregation[@levels]";
+
+	/** The size of the count that follows each set of values in a batch. */
+	private static final int COUNT_SIZE = 4;
+
+	/** The codec the values of a batch are encoded with. */
+	private final PayloadCodec codec;
+
+	/** How many superclasses the disease and symptom are rolled up. */
+	private final int levels;
+
+	/** The amount of packages with each rolled up set of values. */
+	private final HashMap<Values, int[]> counts = new HashMap<Values, int[]>();
+
+	/** The packages aggregated in the current window. */
+	private int packages;
+
+	/** The size those packages would have sent to the cloud. */
+	private long packagesSize;
+
+	/**
+	 * Create the aggregation stage.
+	 * 
+	 * @param codec the codec the values of a batch are encoded with
+	 * @param levels how many superclasses the disease and symptom are rolled up
+	 */
+	public FogAggregator(final PayloadCodec codec, final int levels) {
+		this.codec = codec;
+		this.levels = levels;
+	}
+
+	/**
+	 * Add a package to the current window.
+	 * 
+	 * @param payload the data of the package
+	 */
+	public void add(final PackagePayload payload) {
+		DiseaseOntologyController ontology = DiseaseOntologyController.getInstance();
+		int[] values = new int[PackagePayload.VALUES];
+		values[PackagePayload.DISEASE] = ontology.getAncestor(
+				payload.getReducedValue(PackagePayload.DISEASE), levels);
+		values[PackagePayload.DISEASE_DRIVER] = payload.getReducedValue(PackagePayload.DISEASE_DRIVER);
+		values[PackagePayload.SYMPTOM] = ontology.getAncestor(
+				payload.getReducedValue(PackagePayload.SYMPTOM), levels);
+		values[PackagePayload.TRANSMISSION] = payload.getReducedValue(PackagePayload.TRANSMISSION);
+
+		Values key = new Values(values);
+		int[] count = counts.get(key);
+		if (count == null) {
+			counts.put(key, new int[] {1});
+		} else {
+			count[0]++;
+		}
+		packages++;
+		packagesSize += payload.getSize();
+	}
+
+	/**
+	 * @return the packages aggregated in the current window
+	 */
+	public int getPackages() {
+		return packages;
+	}
+
+	/**
+	 * @return the size those packages would have sent to the cloud
+	 */
+	public long getPackagesSize() {
+		return packagesSize;
+	}
+
+	/**
+	 * Close the current window and start a new one.
+	 * 
+	 * @return the size of the batch shipped to the cloud, 0 if the window was
+	 *         empty
+	 */
+	public int flush() {
+		int batchSize = 0;
+		for (Map.Entry<Values, int[]> entry : counts.entrySet()) {
+			batchSize += codec.encode(entry.getKey().values).length + COUNT_SIZE;
+		}
+		counts.clear();
+		packages = 0;
+		packagesSize = 0;
+		return batchSize;
+	}
+
+	/**
+	 * A rolled up set of values, used as the key of the counts.
+	 */
+	private static final class Values {
+		/** The values. */
+		private final int[] values;
+
+		/** The hash of the values. */
+		private final int hash;
+
+		/**
+		 * @param values the values
+		 */
+		private Values(final int[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Values && Arrays.equals(values, ((Values) o).values);
+		}
+	}
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import static de.nec.nle.siafu.edgeFogCloud.Constants.PlaceFields.*;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.edgeFogCloud.ServerMetrics.Counter;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+import de.nec.nle.siafu.edgeFogCloud.network.LinkModel;
+import de.nec.nle.siafu.model.Place;
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The subscriptions of the edge servers to the data the application 1
+ * leaves at the fog servers. Each edge server subscribes to some fog
+ * servers, and each fog server pushes its new data to its subscribers over
+ * the fog-edge link, either in batches, every window iterations, or
+ * debounced, once no new data arrived for window iterations.
+ * <p>
+ * The same counts are kept for the interoperability requesters, which poll
+ * the data instead, so both can be compared: the messages and bytes each
+ * one sends, and how many iterations old the data is when it reaches an
+ * edge server, counted from the iteration a fog server was seen with it.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class FogSubscriptions implements Publishable {
+
+	/**
+	 * When the fog servers push their data.
+	 */
+	public enum Mode {
+		/** The fog servers don't push, the edge servers only poll. */
+		OFF,
+		/** The new data is pushed every window iterations. */
+		BATCH,
+		/** The new data is pushed once none arrived for window iterations. */
+		DEBOUNCE
+	}
+
+	/** When the fog servers push their data. */
+	private final Mode mode;
+
+	/** The iterations of the batches or of the debouncing. */
+	private final int window;
+
+	/** The links the pushes travel through. */
+	private final LinkModel links;
+
+	/** The fog servers. */
+	private final Place[] fogServers;
+
+	/** The edge servers subscribed to each fog server. */
+	private final Place[][] subscribers;
+
+	/** The packages from the application 1 each fog server was seen with. */
+	private final long[] seenUpdates;
+
+	/** The updates each fog server didn't push yet, and their size. */
+	private final long[] pendingUpdates, pendingBytes;
+
+	/** The iteration each fog server last got new data. */
+	private final long[] updatedAt;
+
+	/** The pushes on their way, the earliest first. */
+	private final PriorityQueue<Delivery> deliveries = new PriorityQueue<Delivery>();
+
+	/** The iteration each piece of data was first seen at a fog server. */
+	private final WeakHashMap<PackagePayload, Long> firstSeen = new WeakHashMap<PackagePayload, Long>();
+
+	/** The iterations so far. */
+	private long iteration;
+
+	/** The messages and bytes pushed, the pushes delivered and their total age. */
+	private long pushMessages, pushBytes, pushDeliveries, pushAge;
+
+	/** The messages and bytes polled, the polls delivered and their total age. */
+	private long pollMessages, pollBytes, pollDeliveries, pollAge;
+
+	/**
+	 * Create the subscriptions from the subscriptions section of config.xml,
+	 * each edge server subscribing to as many random fog servers as it asks
+	 * for.
+	 * 
+	 * @param config the simulation configuration
+	 * @param fogServers the fog servers
+	 * @param edgeServers the edge servers
+	 */
+	public FogSubscriptions(final Configuration config,
+			final Place[] fogServers, final Place[] edgeServers) {
+		String modeName = config.getString("subscriptions[@mode]", "off");
+		try {
+			mode = Mode.valueOf(modeName.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new RuntimeException("Unknown subscription mode " + modeName, e);
+		}
+		window = Math.max(1, config.getInt("subscriptions[@window]", 1));
+		links = new LinkModel(config);
+		this.fogServers = fogServers;
+		seenUpdates = new long[fogServers.length];
+		pendingUpdates = new long[fogServers.length];
+		pendingBytes = new long[fogServers.length];
+		updatedAt = new long[fogServers.length];
+
+		int fogsPerEdge = Math.min(fogServers.length,
+				config.getInt("subscriptions[@fogs]", 1));
+		ArrayList<ArrayList<Place>> fogSubscribers = new ArrayList<ArrayList<Place>>();
+		for (int i = 0; i < fogServers.length; i++) {
+			fogSubscribers.add(new ArrayList<Place>());
+		}
+		if (mode != Mode.OFF) {
+			for (Place edgeServer : edgeServers) {
+				// A partial shuffle picks distinct fog servers.
+				int[] order = new int[fogServers.length];
+				for (int i = 0; i < order.length; i++) {
+					order[i] = i;
+				}
+				for (int i = 0; i < fogsPerEdge; i++) {
+					int pick = i + ThreadLocalRandom.current().nextInt(order.length - i);
+					int fog = order[pick];
+					order[pick] = order[i];
+					order[i] = fog;
+					fogSubscribers.get(fog).add(edgeServer);
+				}
+			}
+		}
+		subscribers = new Place[fogServers.length][];
+		for (int i = 0; i < fogServers.length; i++) {
+			subscribers[i] = fogSubscribers.get(i).toArray(new Place[0]);
+		}
+	}
+
+	/**
+	 * Deliver the pushes that arrived, take note of the new data at the fog
+	 * servers and push it when it's due.
+	 */
+	public void doIteration() {
+		iteration++;
+		while (!deliveries.isEmpty() && deliveries.peek().due <= iteration) {
+			Delivery delivery = deliveries.poll();
+			delivery.edgeServer.set(RINTEROPERABILITYPACK, delivery.payload);
+			delivery.edgeServer.set(INTEROPERABILITYPACK, delivery.payload.expand());
+			pushDeliveries++;
+			pushAge += getAge(delivery.payload);
+		}
+		for (int i = 0; i < fogServers.length; i++) {
+			long updates = ((ServerMetrics) fogServers[i].get(SERVERMETRICS))
+					.get(Counter.APP1_PACKAGES);
+			Object data = fogServers[i].get(APP1LASTPACKAGE);
+			if (updates > seenUpdates[i] && data instanceof PackagePayload) {
+				PackagePayload payload = (PackagePayload) data;
+				if (!firstSeen.containsKey(payload)) {
+					firstSeen.put(payload, iteration);
+				}
+				long newUpdates = updates - seenUpdates[i];
+				seenUpdates[i] = updates;
+				if (subscribers[i].length > 0) {
+					pendingUpdates[i] += newUpdates;
+					pendingBytes[i] += newUpdates * payload.getSize();
+					updatedAt[i] = iteration;
+				}
+			}
+			if (pendingUpdates[i] > 0 && isDue(i)) {
+				push(i, (PackagePayload) data);
+			}
+		}
+	}
+
+	/**
+	 * Find out if a fog server must push its pending updates.
+	 * 
+	 * @param fog the index of the fog server
+	 * @return true if the batch closed, or the updates settled
+	 */
+	private boolean isDue(final int fog) {
+		if (mode == Mode.BATCH) {
+			return iteration % window == 0;
+		}
+		return iteration - updatedAt[fog] >= window;
+	}
+
+	/**
+	 * Push the pending updates of a fog server to each of its subscribers,
+	 * in one message each.
+	 * 
+	 * @param fog the index of the fog server
+	 * @param payload the latest data of the fog server
+	 */
+	private void push(final int fog, final PackagePayload payload) {
+		int bytes = (int) Math.min(Integer.MAX_VALUE, pendingBytes[fog]);
+		for (Place edgeServer : subscribers[fog]) {
+			pushMessages++;
+			pushBytes += bytes;
+			double seconds = links.getTransitTime(Hop.FOG_TO_EDGE, bytes);
+			deliveries.add(new Delivery(iteration + links.getIterations(seconds),
+					edgeServer, payload));
+		}
+		pendingUpdates[fog] = 0;
+		pendingBytes[fog] = 0;
+	}
+
+	/**
+	 * Count a hop of an interoperability requester, which polls the data.
+	 * 
+	 * @param bytes the size the requester carries
+	 */
+	public void recordPollHop(final int bytes) {
+		pollMessages++;
+		pollBytes += bytes;
+	}
+
+	/**
+	 * Count the data an interoperability requester brought to its edge
+	 * server.
+	 * 
+	 * @param payload the data, as the fog server had it
+	 */
+	public void recordPollDelivery(final PackagePayload payload) {
+		pollDeliveries++;
+		pollAge += getAge(payload);
+	}
+
+	/**
+	 * Get how many iterations ago some data was first seen at a fog server.
+	 * 
+	 * @param payload the data
+	 * @return the age, 0 if it wasn't seen yet
+	 */
+	private long getAge(final PackagePayload payload) {
+		Long seen = firstSeen.get(payload);
+		return seen == null ? 0 : iteration - seen;
+	}
+
+	/**
+	 * Flatten the comparison as text.
+	 * 
+	 * @return a flatenned text with the comparison
+	 */
+	public FlatData flatten() {
+		return new Text(toString()).flatten();
+	}
+
+	/**
+	 * @return the messages, bytes and mean age of the pushes and the polls
+	 */
+	public String toString() {
+		return "push (" + mode.toString().toLowerCase() + ") "
+				+ describe(pushMessages, pushBytes, pushDeliveries, pushAge)
+				+ "; poll " + describe(pollMessages, pollBytes, pollDeliveries, pollAge);
+	}
+
+	/**
+	 * @param messages the messages sent
+	 * @param bytes the bytes sent
+	 * @param delivered the data delivered to edge servers
+	 * @param age the total age of the data delivered
+	 * @return the counts as text
+	 */
+	private static String describe(final long messages, final long bytes,
+			final long delivered, final long age) {
+		return messages + " messages, " + bytes + " bytes, " + delivered
+				+ " delivered, mean age " + String.format("%.1f",
+				delivered == 0 ? 0.0 : (double) age / delivered) + " iterations";
+	}
+
+	/**
+	 * A push on its way to an edge server.
+	 */
+	private static final class Delivery implements Comparable<Delivery> {
+		/** The iteration it reaches the edge server. */
+		private final long due;
+		/** The edge server. */
+		private final Place edgeServer;
+		/** The data pushed. */
+		private final PackagePayload payload;
+
+		/**
+		 * @param due the iteration it reaches the edge server
+		 * @param edgeServer the edge server
+		 * @param payload the data pushed
+		 */
+		private Delivery(final long due, final Place edgeServer,
+				final PackagePayload payload) {
+			this.due = due;
+			this.edgeServer = edgeServer;
+			this.payload = payload;
+		}
+
+		/**
+		 * Order the pushes by the iteration they arrive.
+		 * 
+		 * @param other the other push
+		 * @return the comparison
+		 */
+		public int compareTo(final Delivery other) {
+			return Long.compare(due, other.due);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import java.util.HashMap;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.model.Place;
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The data of other fog servers a fog server got from the cloud for the
+ * interoperability requests, kept for a while so the next requests for the
+ * same data don't have to go to the cloud. The cache is stored in the fog
+ * server place, and published as its hits out of its lookups.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class InteroperabilityCache implements Publishable {
+
+	/** How long the data is kept, in network seconds, 0 if it isn't. */
+	private final double ttl;
+
+	/** The data of each fog server, and when it was cached. */
+	private final HashMap<Place, Entry> entries = new HashMap<Place, Entry>();
+
+	/** The lookups that found fresh data, and all the lookups. */
+	private long hits, lookups;
+
+	/**
+	 * Create the cache.
+	 * 
+	 * @param ttl how long the data is kept, in network seconds, 0 if it
+	 *            isn't
+	 */
+	public InteroperabilityCache(final double ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Create a cache from the interoperability section of config.xml.
+	 * 
+	 * @param config the simulation configuration
+	 * @return the cache, which keeps nothing unless cachettl is set
+	 */
+	public static InteroperabilityCache create(final Configuration config) {
+		return new InteroperabilityCache(config.getDouble(
+				"interoperability[@cachettl]", 0));
+	}
+
+	/**
+	 * Look up the data of a fog server.
+	 * 
+	 * @param fogServer the fog server the data comes from
+	 * @param now the network clock
+	 * @return the data, or null if it isn't cached or is older than the TTL
+	 */
+	public PackagePayload get(final Place fogServer, final double now) {
+		if (ttl <= 0) {
+			return null;
+		}
+		lookups++;
+		Entry entry = entries.get(fogServer);
+		if (entry == null || now - entry.cachedAt > ttl) {
+			return null;
+		}
+		hits++;
+		return entry.payload;
+	}
+
+	/**
+	 * Keep the data of a fog server.
+	 * 
+	 * @param fogServer the fog server the data comes from
+	 * @param payload the data
+	 * @param now the network clock
+	 */
+	public void put(final Place fogServer, final PackagePayload payload,
+			final double now) {
+		if (ttl > 0) {
+			entries.put(fogServer, new Entry(payload, now));
+		}
+	}
+
+	/**
+	 * @return the lookups that found fresh data
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the hits out of the lookups, as text
+	 */
+	public String toString() {
+		return ttl > 0 ? hits + "/" + lookups + " hits" : "off";
+	}
+
+	/**
+	 * Flatten the hits as text.
+	 * 
+	 * @return a flatenned text with the hits
+	 */
+	public FlatData flatten() {
+		return new Text(toString()).flatten();
+	}
+
+	/**
+	 * Cached data.
+	 */
+	private static final class Entry {
+		/** The data. */
+		private final PackagePayload payload;
+		/** The network clock when it was cached. */
+		private final double cachedAt;
+
+		/**
+		 * @param payload the data
+		 * @param cachedAt the network clock when it was cached
+		 */
+		private Entry(final PackagePayload payload, final double cachedAt) {
+			this.payload = payload;
+			this.cachedAt = cachedAt;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.nec.nle.siafu.model.Place;
+import de.nec.nle.siafu.model.Position;
+import de.nec.nle.siafu.model.World;
+
+/**
+ * The nearest place of a type for every cell of the map, over walkable
+ * distance, computed once from the gradients of the places. Finding the
+ * nearest place is then a single array read, instead of
+ * {@link World#getNearestPlaceOfType(String, Position)} filtering all the
+ * places and querying the gradient of each one.
+ * <p>
+ * Ties go to the place that comes first in the world, as in
+ * getNearestPlaceOfType. The places of the type are checked once per
+ * simulation time, which the world model changes the places before, and
+ * the map is rebuilt whenever they differ from the ones it was built from.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class NearestPlaceMap {
+
+	/** The simulation's world. */
+	private final World world;
+
+	/** The type of the places. */
+	private final String type;
+
+	/** The places of the type, as of the last build. */
+	private Place[] places = new Place[0];
+
+	/** The position in places of the nearest place to each cell, by row. */
+	private int[] nearest;
+
+	/** The width of the map. */
+	private int width;
+
+	/** The simulation time of the last check, in milliseconds, Long.MIN_VALUE before the first one. */
+	private long checkedAt = Long.MIN_VALUE;
+
+	/**
+	 * Create the map. It's built the first time it's used.
+	 * 
+	 * @param world the simulation's world
+	 * @param type the type of the places
+	 */
+	public NearestPlaceMap(final World world, final String type) {
+		this.world = world;
+		this.type = type;
+	}
+
+	/**
+	 * Get the nearest place to a position.
+	 * 
+	 * @param pos the position
+	 * @return the nearest place of the type
+	 */
+	public Place getNearest(final Position pos) {
+		checkPlaces();
+		return places[nearest[pos.getRow() * width + pos.getCol()]];
+	}
+
+	/**
+	 * @return the places of the type, as of the last build
+	 */
+	public Place[] getPlaces() {
+		checkPlaces();
+		return places;
+	}
+
+	/**
+	 * Rebuild the map if the places of the type changed since it was built,
+	 * the first time it's used at each simulation time.
+	 */
+	private void checkPlaces() {
+		long now = world.getTime().getTimeInMillis();
+		if (now == checkedAt) {
+			return;
+		}
+		checkedAt = now;
+		ArrayList<Place> typedPlaces = new ArrayList<Place>(places.length);
+		for (Place place : world.getPlaces()) {
+			if (place.getType().equals(type)) {
+				typedPlaces.add(place);
+			}
+		}
+		Place[] current = typedPlaces.toArray(new Place[typedPlaces.size()]);
+		if (current.length == 0) {
+			throw new RuntimeException("No places of type " + type + " defined");
+		}
+		if (nearest == null || !Arrays.equals(current, places)) {
+			build(current);
+		}
+	}
+
+	/**
+	 * Assign every cell of the map to its nearest place.
+	 * 
+	 * @param current the places of the type
+	 */
+	private void build(final Place[] current) {
+		int height = world.getHeight();
+		width = world.getWidth();
+		int[] assigned = new int[height * width];
+		int[] bestDistance = new int[assigned.length];
+		for (int p = 0; p < current.length; p++) {
+			int[][] distances = current[p].getGradient().getDistances();
+			for (int row = 0; row < height; row++) {
+				int[] rowDistances = distances[row];
+				int offset = row * width;
+				for (int col = 0; col < width; col++) {
+					if (p == 0 || rowDistances[col] < bestDistance[offset + col]) {
+						bestDistance[offset + col] = rowDistances[col];
+						assigned[offset + col] = p;
+					}
+				}
+			}
+		}
+		places = current;
+		nearest = assigned;
+	}
+}
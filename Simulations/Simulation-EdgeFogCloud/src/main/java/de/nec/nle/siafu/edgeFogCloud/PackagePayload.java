@@ -0,0 +1,273 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import java.util.SplittableRandom;
+
+import de.nec.nle.siafu.edgeFogCloud.codec.PayloadCodec;
+import de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController;
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The data transported by a package: a disease, a disease driver, a symptom
+ * and a transmission, either in their original form (the labels) or in their
+ * reduced form (the ontology ids).
+ * <p>
+ * Both forms are backed by the same four ids, and the labels are looked up in
+ * the ontology only when needed, so reducing or expanding a payload doesn't
+ * allocate or parse any string. The reduced form also keeps the bytes its
+ * {@link PayloadCodec} encoded the ids into, whose length is the size the
+ * package travels with. Payloads are immutable, so they can be shared between
+ * packages and servers.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class PackagePayload implements Publishable {
+
+	/** The position of each value in the payload. */
+	public static final int DISEASE = 0, DISEASE_DRIVER = 1, SYMPTOM = 2, TRANSMISSION = 3;
+
+	/** The amount of values in the payload. */
+	public static final int VALUES = 4;
+
+	/** The separator used when the payload is turned into text. */
+	private static final String SEPARATOR = ";;";
+
+	/** The ontology ids of the values, shared by both forms. */
+	private final int[] reducedValues;
+
+	/** The codec of the reduced form, null for the original form. */
+	private final PayloadCodec codec;
+
+	/** The encoded ids of the reduced form, null for the original form. */
+	private final byte[] encoded;
+
+	/** The reduced form, when it was encoded ahead of time. */
+	private final PackagePayload reducedForm;
+
+	/** The payload as text, built the first time it's needed. */
+	private String text;
+
+	/**
+	 * Build a payload in its original form.
+	 *
+	 * @param reducedValues the ontology ids of the values, at the positions
+	 *            DISEASE, DISEASE_DRIVER, SYMPTOM and TRANSMISSION. The
+	 *            array is not copied and must not be changed afterwards.
+	 */
+	public PackagePayload(final int[] reducedValues) {
+		this(reducedValues, null, null, null);
+	}
+
+	/**
+	 * Build a payload.
+	 *
+	 * @param reducedValues the ontology ids of the values
+	 * @param codec the codec of the reduced form, null for the original form
+	 * @param encoded the encoded ids of the reduced form
+	 * @param reducedForm the reduced form encoded ahead of time, or null
+	 */
+	private PackagePayload(final int[] reducedValues,
+			final PayloadCodec codec, final byte[] encoded,
+			final PackagePayload reducedForm) {
+		this.reducedValues = reducedValues;
+		this.codec = codec;
+		this.encoded = encoded;
+		this.reducedForm = reducedForm;
+	}
+
+	/**
+	 * Create a payload in its original form with random values from the
+	 * ontology.
+	 *
+	 * @return the payload
+	 */
+	public static PackagePayload random() {
+		return new PackagePayload(DiseaseOntologyController.getInstance()
+				.getRandomSetOfReducedValues());
+	}
+
+	/**
+	 * Create a payload in its original form with random values from the
+	 * ontology, drawn from the random source provided.
+	 *
+	 * @param random the random source, only used by the calling thread
+	 * @return the payload
+	 */
+	public static PackagePayload random(final SplittableRandom random) {
+		return new PackagePayload(DiseaseOntologyController.getInstance()
+				.getRandomSetOfReducedValues(random));
+	}
+
+	/**
+	 * Get this payload in its reduced form.
+	 *
+	 * @param reductionCodec the codec that encodes the ids
+	 * @return the reduced payload, which is this one if it's already reduced
+	 */
+	public PackagePayload reduce(final PayloadCodec reductionCodec) {
+		if (codec != null) {
+			return this;
+		}
+		if (reducedForm != null && reducedForm.codec == reductionCodec) {
+			return reducedForm;
+		}
+		return new PackagePayload(reducedValues, reductionCodec,
+				reductionCodec.encode(reducedValues), null);
+	}
+
+	/**
+	 * Get this payload in its original form, with its reduced form already
+	 * encoded, so that a later {@link #reduce(PayloadCodec)} with the same
+	 * codec doesn't have to encode it.
+	 *
+	 * @param reductionCodec the codec that encodes the ids
+	 * @return the original payload
+	 */
+	public PackagePayload withReducedForm(final PayloadCodec reductionCodec) {
+		PackagePayload original = expand();
+		return new PackagePayload(original.reducedValues, null, null,
+				original.reduce(reductionCodec));
+	}
+
+	/**
+	 * Get this payload in its original form, decoding the ids the way the
+	 * receiving end would.
+	 *
+	 * @return the original payload, which is this one if it isn't reduced
+	 */
+	public PackagePayload expand() {
+		if (codec == null) {
+			return this;
+		}
+		return new PackagePayload(codec.decode(encoded));
+	}
+
+	/**
+	 * Find out the form of the payload.
+	 *
+	 * @return true if the payload is in its reduced form
+	 */
+	public boolean isReduced() {
+		return codec != null;
+	}
+
+	/**
+	 * Get the codec the payload was reduced with.
+	 *
+	 * @return the codec, or null if the payload isn't reduced
+	 */
+	public PayloadCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Get the ontology id of one of the values.
+	 *
+	 * @param value DISEASE, DISEASE_DRIVER, SYMPTOM or TRANSMISSION
+	 * @return the id
+	 */
+	public int getReducedValue(final int value) {
+		return reducedValues[value];
+	}
+
+	/**
+	 * Get the label of one of the values.
+	 *
+	 * @param value DISEASE, DISEASE_DRIVER, SYMPTOM or TRANSMISSION
+	 * @return the label
+	 */
+	public String getOriginalValue(final int value) {
+		return DiseaseOntologyController.getInstance().getOriginalValue(
+				reducedValues[value]);
+	}
+
+	/**
+	 * Get the labels of many payloads in one pass over the ontology, as a fog
+	 * or cloud server that accumulated packages would translate them.
+	 *
+	 * @param payloads the payloads, in any form
+	 * @param parallel whether large batches are split between threads
+	 * @return the labels of each payload, at the positions DISEASE,
+	 *         DISEASE_DRIVER, SYMPTOM and TRANSMISSION
+	 */
+	public static String[][] getOriginalValues(final PackagePayload[] payloads,
+			final boolean parallel) {
+		int[][] reducedValues = new int[payloads.length][];
+		for (int i = 0; i < payloads.length; i++) {
+			reducedValues[i] = payloads[i].reducedValues;
+		}
+		return DiseaseOntologyController.getInstance().getOriginalValues(
+				reducedValues, parallel);
+	}
+
+	/**
+	 * Get the size of the payload in its current form. The reduced form is
+	 * the size of the encoded ids, and the original form counts the
+	 * characters of the labels plus two, as the joined text less four was
+	 * always counted.
+	 *
+	 * @return the size in bytes
+	 */
+	public int getSize() {
+		if (codec != null) {
+			return encoded.length;
+		}
+		int size = (SEPARATOR.length() * (VALUES - 1)) - VALUES;
+		for (int i = 0; i < VALUES; i++) {
+			size += getOriginalValue(i).length();
+		}
+		return size;
+	}
+
+	/**
+	 * Get the payload as text, the labels or ids joined by ";;".
+	 *
+	 * @return the text
+	 */
+	public String toString() {
+		if (text == null) {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < VALUES; i++) {
+				if (i > 0) {
+					builder.append(SEPARATOR);
+				}
+				if (codec != null) {
+					builder.append(reducedValues[i]);
+				} else {
+					builder.append(getOriginalValue(i));
+				}
+			}
+			text = builder.toString();
+		}
+		return text;
+	}
+
+	/**
+	 * Flatten the payload as text.
+	 *
+	 * @return a flatenned text with the payload
+	 */
+	public FlatData flatten() {
+		return new Text(toString()).flatten();
+	}
+}
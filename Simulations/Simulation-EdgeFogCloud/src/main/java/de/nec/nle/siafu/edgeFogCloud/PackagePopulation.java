@@ -0,0 +1,162 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import static de.nec.nle.siafu.edgeFogCloud.Constants.POPULATION;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.edgeFogCloud.Constants.Application;
+
+/**
+ * The make up of the package population, read from the packages section of
+ * the simulation's config.xml:
+ * 
+ * <pre>
+ * &lt;packages&gt;
+ *   &lt;count&gt;40&lt;/count&gt;
+ *   &lt;origin type="Edge" weight="1" app1ratio="0"/&gt;
+ *   &lt;origin type="House" weight="1" app1ratio="1"/&gt;
+ * &lt;/packages&gt;
+ * </pre>
+ * 
+ * Each origin is the type of the places its packages start from. The
+ * packages are spread between the origins in proportion to their weights,
+ * and app1ratio is the share of the packages of an origin sent by the
+ * application 1, the rest being sent by the application 2. Both are handed
+ * out deterministically, interleaved, so the proportions are exact for any
+ * count.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class PackagePopulation {
+
+	/** The origins used when none is configured: Edge for APP2, House for APP1. */
+	private static final String[] DEFAULT_ORIGINS = {"Edge", "House"};
+
+	/** The amount of packages. */
+	private final int count;
+
+	/** The place type of each origin. */
+	private final String[] originTypes;
+
+	/** The weight of each origin. */
+	private final double[] weights;
+
+	/** The share of the packages of each origin sent by the application 1. */
+	private final double[] app1Ratios;
+
+	/** The running credit of each origin, for the smooth weighted round robin. */
+	private final double[] credits;
+
+	/** The packages handed out to each origin so far. */
+	private final long[] originCounts;
+
+	/** The sum of the weights. */
+	private final double totalWeight;
+
+	/**
+	 * Read the population from the configuration.
+	 * 
+	 * @param config the simulation's configuration
+	 */
+	public PackagePopulation(final Configuration config) {
+		count = config.getInt("packages.count", POPULATION);
+		String[] types = config.getStringArray("packages.origin[@type]");
+		if (types.length == 0) {
+			originTypes = DEFAULT_ORIGINS;
+			weights = new double[] {1, 1};
+			app1Ratios = new double[] {0, 1};
+		} else {
+			originTypes = types;
+			weights = new double[types.length];
+			app1Ratios = new double[types.length];
+			for (int i = 0; i < types.length; i++) {
+				String origin = "packages.origin(" + i + ")";
+				weights[i] = config.getDouble(origin + "[@weight]", 1);
+				app1Ratios[i] = config.getDouble(origin + "[@app1ratio]",
+						types[i].equals("House") ? 1 : 0);
+				if (weights[i] < 0 || app1Ratios[i] < 0 || app1Ratios[i] > 1) {
+					throw new RuntimeException("Invalid weight or app1ratio for the origin "
+							+ types[i]);
+				}
+			}
+		}
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+		if (total <= 0) {
+			throw new RuntimeException("The package origins have no weight");
+		}
+		totalWeight = total;
+		credits = new double[originTypes.length];
+		originCounts = new long[originTypes.length];
+	}
+
+	/**
+	 * @return the amount of packages
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the place types of the origins
+	 */
+	public String[] getOriginTypes() {
+		return originTypes;
+	}
+
+	/**
+	 * Pick the origin of the next package. Every origin gains its weight in
+	 * credit, and the one with the most credit is picked and pays the total
+	 * weight back.
+	 * 
+	 * @return the position of the origin in {@link #getOriginTypes()}
+	 */
+	public int nextOrigin() {
+		int picked = 0;
+		for (int i = 0; i < credits.length; i++) {
+			credits[i] += weights[i];
+			if (credits[i] > credits[picked]) {
+				picked = i;
+			}
+		}
+		credits[picked] -= totalWeight;
+		return picked;
+	}
+
+	/**
+	 * Pick the application that sends the next package of an origin, so
+	 * that the share of the application 1 stays at the configured ratio.
+	 * 
+	 * @param origin the position of the origin
+	 * @return the application
+	 */
+	public Application nextApplication(final int origin) {
+		long previous = originCounts[origin]++;
+		double ratio = app1Ratios[origin];
+		if (Math.floor(originCounts[origin] * ratio) > Math.floor(previous * ratio)) {
+			return Application.APP1;
+		}
+		return Application.APP2;
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.edgeFogCloud.codec.PayloadCodec;
+
+/**
+ * A bounded ring buffer of random payloads, kept full by background worker
+ * threads, so that the agent model takes the data of a new package without
+ * sampling the ontology and encoding the reduced form on the simulation
+ * thread. When the pool runs dry the payload is generated on the spot, and
+ * the miss is counted.
+ * <p>
+ * Only the simulation thread is expected to take payloads. Each worker draws
+ * from its own split of one SplittableRandom, so the workers never contend
+ * on a shared random source. The workers run until {@link #shutdown()} is
+ * called.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class PayloadPool {
+
+	/** The key in config.xml with the amount of payloads kept ready, 0 to disable the pool. */
+	public static final String SIZE_KEY = "payloadpool[@size]";
+
+	/** The key in config.xml with the amount of worker threads filling the pool. */
+	public static final String WORKERS_KEY = "payloadpool[@workers]";
+
+	/** Default amount of payloads kept ready. */
+	public static final int DEFAULT_SIZE = 256;
+
+	/** Default amount of worker threads. */
+	public static final int DEFAULT_WORKERS = 1;
+
+	/** The payloads ready to be taken, null if the pool is disabled. */
+	private final ArrayBlockingQueue<PackagePayload> payloads;
+
+	/** The codec the reduced form is encoded with. */
+	private final PayloadCodec codec;
+
+	/** The threads keeping the pool full. */
+	private final ArrayList<Thread> workers = new ArrayList<Thread>();
+
+	/** The amount of payloads taken. */
+	private long takes;
+
+	/** The amount of payloads that had to be generated on the spot. */
+	private long misses;
+
+	/** The sum of the fill of the pool at each take. */
+	private long fillSum;
+
+	/**
+	 * Create a pool and start its workers.
+	 * 
+	 * @param codec the codec the reduced form is encoded with
+	 * @param size the amount of payloads kept ready, 0 to disable the pool
+	 * @param workerCount the amount of worker threads filling the pool
+	 */
+	public PayloadPool(final PayloadCodec codec, final int size, final int workerCount) {
+		this.codec = codec;
+		if (size <= 0) {
+			payloads = null;
+			return;
+		}
+		payloads = new ArrayBlockingQueue<PackagePayload>(size);
+		SplittableRandom random = new SplittableRandom();
+		for (int i = 0; i < Math.max(workerCount, 1); i++) {
+			final SplittableRandom workerRandom = random.split();
+			Thread worker = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while (!Thread.currentThread().isInterrupted()) {
+							payloads.put(PackagePayload.random(workerRandom)
+									.withReducedForm(codec));
+						}
+					} catch (InterruptedException e) {
+						// The pool is no longer needed.
+					}
+				}
+			}, "PayloadPool-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			workers.add(worker);
+		}
+	}
+
+	/**
+	 * Stop the workers. The payloads already in the pool can still be
+	 * taken, and the pool generates the rest on the spot.
+	 */
+	public void shutdown() {
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		workers.clear();
+	}
+
+	/**
+	 * Create a pool sized by the {@link #SIZE_KEY} and {@link #WORKERS_KEY}
+	 * of config.xml.
+	 * 
+	 * @param config the simulation's configuration
+	 * @param codec the codec the reduced form is encoded with
+	 * @return the pool
+	 */
+	public static PayloadPool createConfigured(final Configuration config, final PayloadCodec codec) {
+		return new PayloadPool(codec,
+				config.getInt(SIZE_KEY, DEFAULT_SIZE),
+				config.getInt(WORKERS_KEY, DEFAULT_WORKERS));
+	}
+
+	/**
+	 * Generate a random payload with its reduced form.
+	 * 
+	 * @return the payload, in its original form
+	 */
+	private PackagePayload generate() {
+		return PackagePayload.random().withReducedForm(codec);
+	}
+
+	/**
+	 * Take the next payload, generating one if the pool is empty.
+	 * 
+	 * @return a random payload in its original form
+	 */
+	public PackagePayload take() {
+		takes++;
+		PackagePayload payload = null;
+		if (payloads != null) {
+			fillSum += payloads.size();
+			payload = payloads.poll();
+		}
+		if (payload == null) {
+			misses++;
+			payload = generate();
+		}
+		return payload;
+	}
+
+	/**
+	 * @return the amount of payloads ready to be taken
+	 */
+	public int getFill() {
+		return payloads == null ? 0 : payloads.size();
+	}
+
+	/**
+	 * @return the amount of payloads the pool keeps ready
+	 */
+	public int getCapacity() {
+		return payloads == null ? 0 : payloads.size() + payloads.remainingCapacity();
+	}
+
+	/**
+	 * @return the amount of payloads taken
+	 */
+	public long getTakes() {
+		return takes;
+	}
+
+	/**
+	 * @return the amount of payloads that had to be generated on the spot
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the average fill of the pool when a payload was taken
+	 */
+	public double getAverageFill() {
+		return takes == 0 ? 0 : (double) fillSum / takes;
+	}
+}
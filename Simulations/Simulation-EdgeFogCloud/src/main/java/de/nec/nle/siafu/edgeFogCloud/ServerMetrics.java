@@ -0,0 +1,165 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The amount of packages and data a Fog or Cloud server received from each
+ * application, kept in primitive counters. The metrics are stored in the
+ * server place, and each counter is also published under its own field as a
+ * view that is only turned into text when the place is flattened.
+ * <p>
+ * The simulation updates the counters from its own thread only, so they
+ * don't need to be atomic.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class ServerMetrics implements Publishable {
+
+	/**
+	 * The counters of the server.
+	 */
+	public enum Counter {
+		/** Amount of packages received from the application 1. */
+		APP1_PACKAGES,
+		/** Total size of the packages received from the application 1. */
+		APP1_SIZE,
+		/** Amount of packages received from the application 2. */
+		APP2_PACKAGES,
+		/** Total size of the packages received from the application 2. */
+		APP2_SIZE
+	}
+
+	/** The value of each counter, by ordinal. */
+	private final long[] counters = new long[Counter.values().length];
+
+	/** The view published for each counter, by ordinal. */
+	private final View[] views = new View[counters.length];
+
+	/**
+	 * Create the metrics with all the counters at zero.
+	 */
+	public ServerMetrics() {
+		for (Counter counter : Counter.values()) {
+			views[counter.ordinal()] = new View(counter);
+		}
+	}
+
+	/**
+	 * Count a package received from the application 1.
+	 * 
+	 * @param dataSize the size of the package
+	 */
+	public void addApp1Package(final long dataSize) {
+		counters[Counter.APP1_PACKAGES.ordinal()]++;
+		counters[Counter.APP1_SIZE.ordinal()] += dataSize;
+	}
+
+	/**
+	 * Count a package received from the application 2.
+	 * 
+	 * @param dataSize the size of the package
+	 */
+	public void addApp2Package(final long dataSize) {
+		counters[Counter.APP2_PACKAGES.ordinal()]++;
+		counters[Counter.APP2_SIZE.ordinal()] += dataSize;
+	}
+
+	/**
+	 * Get the value of a counter.
+	 * 
+	 * @param counter the counter
+	 * @return its value
+	 */
+	public long get(final Counter counter) {
+		return counters[counter.ordinal()];
+	}
+
+	/**
+	 * @return the amount of packages received from both applications
+	 */
+	public long getPackages() {
+		return counters[Counter.APP1_PACKAGES.ordinal()]
+				+ counters[Counter.APP2_PACKAGES.ordinal()];
+	}
+
+	/**
+	 * Get the view that publishes a counter.
+	 * 
+	 * @param counter the counter
+	 * @return the view, which always shows the current value
+	 */
+	public Publishable getView(final Counter counter) {
+		return views[counter.ordinal()];
+	}
+
+	/**
+	 * Flatten all the counters as text.
+	 * 
+	 * @return a flatenned text with the counters
+	 */
+	public FlatData flatten() {
+		return new Text(toString()).flatten();
+	}
+
+	/**
+	 * @return the counters as text
+	 */
+	public String toString() {
+		return "APP1 " + get(Counter.APP1_PACKAGES) + " packages, "
+				+ get(Counter.APP1_SIZE) + " bytes; APP2 "
+				+ get(Counter.APP2_PACKAGES) + " packages, "
+				+ get(Counter.APP2_SIZE) + " bytes";
+	}
+
+	/**
+	 * The published view of one counter.
+	 */
+	private final class View implements Publishable {
+		/** The counter shown. */
+		private final Counter counter;
+
+		/**
+		 * @param counter the counter shown
+		 */
+		private View(final Counter counter) {
+			this.counter = counter;
+		}
+
+		/**
+		 * @return the current value of the counter
+		 */
+		public String toString() {
+			return String.valueOf(get(counter));
+		}
+
+		/**
+		 * Flatten the current value of the counter.
+		 * 
+		 * @return a flatenned text with the value
+		 */
+		public FlatData flatten() {
+			return new Text(toString()).flatten();
+		}
+	}
+}
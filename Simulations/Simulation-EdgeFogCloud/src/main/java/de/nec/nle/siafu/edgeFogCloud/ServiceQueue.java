@@ -0,0 +1,319 @@
+/*
+ * Copyright NEC Europe Ltd. 2006-2007
+ * 
+ * This file is part of the context simulator called Siafu.
+ * 
+ * Siafu is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ * 
+ * Siafu is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.nec.nle.siafu.edgeFogCloud;
+
+import java.util.ArrayDeque;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The service model of a Fog or Cloud server: the packages that reach the
+ * server wait in a bounded queue, and the server takes at most its service
+ * rate of them out of the queue each iteration. Extra work the server does,
+ * like reducing a package, uses up service too, which the packages behind it
+ * wait for. A server with no service rate serves the packages as soon as
+ * they arrive, as the simulation always did.
+ * <p>
+ * The queue is stored in the server place, and its depth and utilization are
+ * also published under their own fields as views that are only turned into
+ * text when the place is flattened.
+ * 
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class ServiceQueue implements Publishable {
+
+	/**
+	 * What happens to a package that reaches a server whose queue is full.
+	 */
+	public enum Overflow {
+		/** The package is lost, and its origin sends a new one. */
+		DROP,
+		/** The package waits at the server until there's room in the queue. */
+		BLOCK,
+		/** The package is sent to another server of the same tier. */
+		REDIRECT
+	}
+
+	/** The packages waiting to be served, in arrival order. */
+	private final ArrayDeque<Agent> waiting = new ArrayDeque<Agent>();
+
+	/** How many packages can wait, 0 for no limit. */
+	private final int capacity;
+
+	/** How many packages are served each iteration, 0 to serve them on arrival. */
+	private final double rate;
+
+	/** What happens to the packages that find the queue full. */
+	private final Overflow overflow;
+
+	/** The service left over from the previous iterations, negative while the server owes work. */
+	private double credit;
+
+	/** The service used so far, in packages. */
+	private double work;
+
+	/** The iterations the queue went through. */
+	private long iterations;
+
+	/** The packages served, dropped, refused while blocked and redirected. */
+	private long served, dropped, blocked, redirected;
+
+	/** The published view of the depth. */
+	private final Publishable depthView = new View(false);
+
+	/** The published view of the utilization. */
+	private final Publishable utilizationView = new View(true);
+
+	/**
+	 * Create the queue of a server.
+	 * 
+	 * @param capacity how many packages can wait, 0 for no limit
+	 * @param rate how many packages are served each iteration, 0 to serve
+	 *            them on arrival. Fractional rates serve one package every
+	 *            few iterations.
+	 * @param overflow what happens to the packages that find the queue full
+	 */
+	public ServiceQueue(final int capacity, final double rate,
+			final Overflow overflow) {
+		this.capacity = capacity;
+		this.rate = rate;
+		this.overflow = overflow;
+	}
+
+	/**
+	 * Create the queue of a server of a tier from the service section of
+	 * config.xml, e.g.
+	 * &lt;fog capacity="20" rate="2" overflow="redirect"/&gt;. Tiers that
+	 * aren't configured serve the packages on arrival.
+	 * 
+	 * @param config the simulation configuration
+	 * @param tier the element of the tier, "fog" or "cloud"
+	 * @return the queue
+	 */
+	public static ServiceQueue create(final Configuration config,
+			final String tier) {
+		String prefix = "service." + tier;
+		String overflow = config.getString(prefix + "[@overflow]", "block");
+		try {
+			return new ServiceQueue(config.getInt(prefix + "[@capacity]", 0),
+					config.getDouble(prefix + "[@rate]", 0),
+					Overflow.valueOf(overflow.trim().toUpperCase()));
+		} catch (IllegalArgumentException e) {
+			throw new RuntimeException("Unknown overflow policy " + overflow
+					+ " for the " + tier + " servers", e);
+		}
+	}
+
+	/**
+	 * @return true if the server serves the packages as soon as they arrive
+	 */
+	public boolean isImmediate() {
+		return rate <= 0;
+	}
+
+	/**
+	 * @return what happens to the packages that find the queue full
+	 */
+	public Overflow getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * Put a package in the queue.
+	 * 
+	 * @param a the package
+	 * @return false if the queue is full and the package wasn't queued
+	 */
+	public boolean offer(final Agent a) {
+		if (capacity > 0 && waiting.size() >= capacity) {
+			return false;
+		}
+		waiting.add(a);
+		return true;
+	}
+
+	/**
+	 * Start an iteration, giving the server its service rate.
+	 */
+	public void startIteration() {
+		iterations++;
+		credit += rate;
+	}
+
+	/**
+	 * Take the next package the server serves in the current iteration.
+	 * 
+	 * @return the package, or null if the queue is empty or the server
+	 *         has served its rate
+	 */
+	public Agent poll() {
+		if (credit < 1 || waiting.isEmpty()) {
+			if (waiting.isEmpty()) {
+				// An idle server can't bank the service it didn't use.
+				credit = Math.min(credit, 1);
+			}
+			return null;
+		}
+		credit--;
+		work++;
+		served++;
+		return waiting.poll();
+	}
+
+	/**
+	 * Keep the server busy with extra work, using up the service it would
+	 * have given the packages waiting. A server with no service rate has no
+	 * capacity to use up.
+	 * 
+	 * @param iterations how long the work takes the server, in iterations
+	 */
+	public void charge(final double iterations) {
+		credit -= iterations * rate;
+		work += iterations * rate;
+	}
+
+	/**
+	 * Count a package lost because the queue was full.
+	 */
+	public void countDropped() {
+		dropped++;
+	}
+
+	/**
+	 * Count a package that had to wait because the queue was full.
+	 */
+	public void countBlocked() {
+		blocked++;
+	}
+
+	/**
+	 * Count a package sent to another server because the queue was full.
+	 */
+	public void countRedirected() {
+		redirected++;
+	}
+
+	/**
+	 * @return true if packages are waiting or the server owes work
+	 */
+	public boolean isBusy() {
+		return !waiting.isEmpty() || credit < 0;
+	}
+
+	/**
+	 * @return the amount of packages waiting
+	 */
+	public int getDepth() {
+		return waiting.size();
+	}
+
+	/**
+	 * @return the iterations a package arriving now would wait to be
+	 *         served, behind the packages waiting and the work owed
+	 */
+	public double getExpectedWait() {
+		return isImmediate() ? 0 : (waiting.size() + Math.max(0, -credit)) / rate;
+	}
+
+	/**
+	 * @return the share of the service rate used so far, between 0 and 1
+	 */
+	public double getUtilization() {
+		if (isImmediate() || iterations == 0) {
+			return 0;
+		}
+		return Math.min(1, work / (rate * iterations));
+	}
+
+	/**
+	 * @return the view that publishes the depth
+	 */
+	public Publishable getDepthView() {
+		return depthView;
+	}
+
+	/**
+	 * @return the view that publishes the utilization
+	 */
+	public Publishable getUtilizationView() {
+		return utilizationView;
+	}
+
+	/**
+	 * Flatten the state of the queue as text.
+	 * 
+	 * @return a flatenned text with the state
+	 */
+	public FlatData flatten() {
+		return new Text(toString()).flatten();
+	}
+
+	/**
+	 * @return the state of the queue as text
+	 */
+	public String toString() {
+		if (isImmediate()) {
+			return "served on arrival";
+		}
+		return depthView + ", " + utilizationView + " busy; " + served
+				+ " served, " + dropped + " dropped, " + blocked + " blocked, "
+				+ redirected + " redirected";
+	}
+
+	/**
+	 * The published view of the depth or the utilization.
+	 */
+	private final class View implements Publishable {
+		/** True for the utilization, false for the depth. */
+		private final boolean utilization;
+
+		/**
+		 * @param utilization true for the utilization, false for the depth
+		 */
+		private View(final boolean utilization) {
+			this.utilization = utilization;
+		}
+
+		/**
+		 * @return the current value
+		 */
+		public String toString() {
+			if (utilization) {
+				return String.format("%.1f%%", getUtilization() * 100);
+			}
+			return capacity > 0 ? getDepth() + "/" + capacity
+					: String.valueOf(getDepth());
+		}
+
+		/**
+		 * Flatten the current value.
+		 * 
+		 * @return a flatenned text with the value
+		 */
+		public FlatData flatten() {
+			return new Text(toString()).flatten();
+		}
+	}
+}
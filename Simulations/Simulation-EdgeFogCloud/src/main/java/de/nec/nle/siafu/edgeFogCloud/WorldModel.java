@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Iterator;
 
 import de.nec.nle.siafu.behaviormodels.BaseWorldModel;
+import de.nec.nle.siafu.edgeFogCloud.ServerMetrics.Counter;
 import de.nec.nle.siafu.model.Place;
 import de.nec.nle.siafu.model.World;
 import de.nec.nle.siafu.types.Text;
@@ -36,6 +37,9 @@ import static de.nec.nle.siafu.edgeFogCloud.Constants.PlaceFields.*;
  */
 public class WorldModel extends BaseWorldModel {
 
+	/** The subscriptions of the edge servers to the fog servers. */
+	private FogSubscriptions subscriptions;
+
 	/**
 	 * Create the world model.
 	 * 
@@ -47,49 +51,100 @@ public class WorldModel extends BaseWorldModel {
 
 	/**
 	 * Add fields to Fog,Cloud and Edge servers to control interoperability
-	 * and the amount of data they received.
+	 * and the amount of data they received, and subscribe the Edge servers
+	 * to the Fog servers that push them their data.
 	 * 
 	 * @param places an ArrayList with the places created with the images
 	 */
 	@Override
 	public void createPlaces(final ArrayList<Place> places) {
 		Integer fogPosition=0;
+		ArrayList<Place> fogServers = new ArrayList<Place>();
+		ArrayList<Place> edgeServers = new ArrayList<Place>();
+		Place cloudServer = null;
 		Iterator<Place> placesIterator = places.iterator();
 		while(placesIterator.hasNext())
 		{
 			Place currentPlace = placesIterator.next();
 			if(currentPlace.getType().contains("Fog"))
 			{
-				currentPlace.set(APP1PACKAMOUNT, new Text("0"));
-				currentPlace.set(APP2PACKAMOUNT, new Text("0"));
-				currentPlace.set(APP1TOTALSIZE, new Text("0"));
-				currentPlace.set(APP2TOTALSIZE, new Text("0"));
+				createServerMetrics(currentPlace);
+				createServiceQueue(currentPlace, "fog");
+				currentPlace.set(INTEROPERABILITYCACHE,
+						InteroperabilityCache.create(world.getSimulationConfig()));
 				currentPlace.set(APP1LASTPACKAGE, new Text("none"));
 				currentPlace.set(APP2LASTPACKAGE, new Text("none"));
+				fogServers.add(currentPlace);
 				fogPosition++;
 			}
 			else if(currentPlace.getType().contains("Cloud"))
 			{
-				currentPlace.set(APP1PACKAMOUNT, new Text("0"));
-				currentPlace.set(APP2PACKAMOUNT, new Text("0"));
-				currentPlace.set(APP1TOTALSIZE, new Text("0"));
-				currentPlace.set(APP2TOTALSIZE, new Text("0"));
+				createServerMetrics(currentPlace);
+				createServiceQueue(currentPlace, "cloud");
+				currentPlace.set(PAYLOADPOOLFILL, new Text("0"));
+				currentPlace.set(PAYLOADPOOLMISSES, new Text("0"));
+				currentPlace.set(AGGREGATIONSAVEDDATA, new Text("0"));
+				currentPlace.set(AGGREGATIONSAVEDARRIVALS, new Text("0"));
+				currentPlace.set(INTEROPERABILITYTRAFFIC, new Text("none"));
+				currentPlace.set(INTEROPERABILITYPATHS, new Text("none"));
+				currentPlace.set(CLOUDINGESTION, new Text("none"));
+				if(cloudServer == null)
+				{
+					cloudServer = currentPlace;
+				}
 			}
 			else if(currentPlace.getType().contains("Edge"))
 			{
 				currentPlace.set(INTEROPERABILITYPACK, new Text("none"));
 				currentPlace.set(RINTEROPERABILITYPACK, new Text("none"));
+				edgeServers.add(currentPlace);
 			}
 		}
+		subscriptions = new FogSubscriptions(world.getSimulationConfig(),
+				fogServers.toArray(new Place[0]), edgeServers.toArray(new Place[0]));
+		if(cloudServer != null)
+		{
+			cloudServer.set(SUBSCRIPTIONS, subscriptions);
+		}
+	}
+
+	/**
+	 * Add the counters of the packages and data a server receives,
+	 * each one published under its own field.
+	 * 
+	 * @param server the Fog or Cloud server
+	 */
+	private void createServerMetrics(final Place server) {
+		ServerMetrics metrics = new ServerMetrics();
+		server.set(SERVERMETRICS, metrics);
+		server.set(APP1PACKAMOUNT, metrics.getView(Counter.APP1_PACKAGES));
+		server.set(APP2PACKAMOUNT, metrics.getView(Counter.APP2_PACKAGES));
+		server.set(APP1TOTALSIZE, metrics.getView(Counter.APP1_SIZE));
+		server.set(APP2TOTALSIZE, metrics.getView(Counter.APP2_SIZE));
+	}
+
+	/**
+	 * Add the queue the packages wait in until the server serves them,
+	 * configured for its tier in config.xml, with its depth and utilization
+	 * published under their own fields.
+	 * 
+	 * @param server the Fog or Cloud server
+	 * @param tier the element of the tier in the service section
+	 */
+	private void createServiceQueue(final Place server, final String tier) {
+		ServiceQueue queue = ServiceQueue.create(world.getSimulationConfig(), tier);
+		server.set(SERVICEQUEUE, queue);
+		server.set(QUEUEDEPTH, queue.getDepthView());
+		server.set(QUEUEUTILIZATION, queue.getUtilizationView());
 	}
 
 	/**
-	 * Nothing done here.
+	 * Let the Fog servers push their new data to the subscribed Edge servers.
 	 * 
 	 * @param places the places in the simulation
 	 */
 	@Override
 	public void doIteration(final Collection<Place> places) {
-		// Do nothing
+		subscriptions.doIteration();
 	}
 }
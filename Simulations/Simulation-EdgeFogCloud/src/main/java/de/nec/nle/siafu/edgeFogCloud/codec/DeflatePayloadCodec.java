@@ -0,0 +1,82 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the four byte ids of {@link IdPayloadCodec} with raw deflate,
+ * without the zlib header. On packages this small, the deflate block
+ * overhead usually outweighs what it saves, which is what this codec is
+ * there to show.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class DeflatePayloadCodec implements PayloadCodec {
+
+	/** Writes the ids before they are compressed. */
+	private final IdPayloadCodec ids = new IdPayloadCodec();
+
+	/**
+	 * @return "deflate".
+	 */
+	public String getName()
+	{
+		return "deflate";
+	}
+
+	/**
+	 * Compress the ids.
+	 *
+	 * @param reducedValues the ontology ids.
+	 * @return the compressed bytes.
+	 */
+	public byte[] encode(int[] reducedValues)
+	{
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		try {
+			deflater.setInput(ids.encode(reducedValues));
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+			byte[] buffer = new byte[64];
+			while(!deflater.finished())
+			{
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompress the bytes written by {@link #encode(int[])}.
+	 *
+	 * @param encoded the compressed bytes.
+	 * @return the ontology ids.
+	 */
+	public int[] decode(byte[] encoded)
+	{
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(encoded);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+			byte[] buffer = new byte[64];
+			while(!inflater.finished())
+			{
+				int inflated = inflater.inflate(buffer);
+				if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new IllegalArgumentException("Truncated payload");
+				}
+				out.write(buffer, 0, inflated);
+			}
+			return ids.decode(out.toByteArray());
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException("Corrupt payload", e);
+		} finally {
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+import java.util.Arrays;
+
+import de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController;
+
+/**
+ * Encodes each ontology id as its position in the sorted ids of its
+ * sub-ontology, which both ends of a link know, using just the bits that
+ * sub-ontology needs. The dictionaries hold the superclasses too, so the
+ * values the fog aggregation rolls up are encoded as well. The positions are
+ * packed together and the package is rounded up to whole bytes.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class DictionaryPayloadCodec implements PayloadCodec {
+
+	/** The sorted ids of the disease, disease driver, symptom and transmission. */
+	private final int[][] dictionaries;
+
+	/** The bits used by a position in each dictionary. */
+	private final int[] bits;
+
+	/**
+	 * Build the dictionaries from the ontology.
+	 */
+	DictionaryPayloadCodec() {
+		this(getDictionaries(DiseaseOntologyController.getInstance()));
+	}
+
+	/**
+	 * @param dictionaries the sorted ids of each position of the packages.
+	 */
+	DictionaryPayloadCodec(int[][] dictionaries) {
+		this.dictionaries = dictionaries;
+		bits = new int[dictionaries.length];
+		for(int i = 0; i < dictionaries.length; i++)
+		{
+			bits[i] = Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionaries[i].length - 1));
+		}
+	}
+
+	/**
+	 * @param ontology the ontology.
+	 * @return the sorted ids of the disease, disease driver, symptom and
+	 *         transmission.
+	 */
+	private static int[][] getDictionaries(DiseaseOntologyController ontology)
+	{
+		int[][] dictionaries = new int[4][];
+		for(int i = 0; i < dictionaries.length; i++)
+		{
+			dictionaries[i] = ontology.getReducedValues(i);
+		}
+		return dictionaries;
+	}
+
+	/**
+	 * @return "dictionary".
+	 */
+	public String getName()
+	{
+		return "dictionary";
+	}
+
+	/**
+	 * Write the position of each id in its dictionary.
+	 *
+	 * @param reducedValues the ontology ids of the disease, disease driver,
+	 *            symptom and transmission.
+	 * @return the packed positions.
+	 */
+	public byte[] encode(int[] reducedValues)
+	{
+		int totalBits = 0;
+		for(int i = 0; i < reducedValues.length; i++)
+		{
+			totalBits += bits[i];
+		}
+		byte[] encoded = new byte[(totalBits + 7) / 8];
+		int bitPosition = 0;
+		for(int i = 0; i < reducedValues.length; i++)
+		{
+			int position = Arrays.binarySearch(dictionaries[i], reducedValues[i]);
+			if(position < 0)
+			{
+				throw new IllegalArgumentException("No class with id " + reducedValues[i]);
+			}
+			for(int bit = bits[i] - 1; bit >= 0; bit--, bitPosition++)
+			{
+				if(((position >>> bit) & 1) != 0)
+				{
+					encoded[bitPosition >>> 3] |= 0x80 >>> (bitPosition & 7);
+				}
+			}
+		}
+		return encoded;
+	}
+
+	/**
+	 * Read back the positions written by {@link #encode(int[])}.
+	 *
+	 * @param encoded the encoded bytes.
+	 * @return the ontology ids of the disease, disease driver, symptom and
+	 *         transmission.
+	 */
+	public int[] decode(byte[] encoded)
+	{
+		int[] reducedValues = new int[dictionaries.length];
+		int bitPosition = 0;
+		for(int i = 0; i < reducedValues.length; i++)
+		{
+			if(bitPosition + bits[i] > encoded.length * 8)
+			{
+				throw new IllegalArgumentException("Truncated payload");
+			}
+			int position = 0;
+			for(int bit = 0; bit < bits[i]; bit++, bitPosition++)
+			{
+				position = (position << 1) | ((encoded[bitPosition >>> 3] >>> (7 - (bitPosition & 7))) & 1);
+			}
+			if(position >= dictionaries[i].length)
+			{
+				throw new IllegalArgumentException("Corrupt payload");
+			}
+			reducedValues[i] = dictionaries[i][position];
+		}
+		return reducedValues;
+	}
+}
@@ -0,0 +1,57 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes each ontology id as a four byte int, the reduction the simulation
+ * has always used: sixteen bytes per package.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class IdPayloadCodec implements PayloadCodec {
+
+	/**
+	 * @return "ids".
+	 */
+	public String getName()
+	{
+		return "ids";
+	}
+
+	/**
+	 * Write each id as a big-endian int.
+	 *
+	 * @param reducedValues the ontology ids.
+	 * @return four bytes per id.
+	 */
+	public byte[] encode(int[] reducedValues)
+	{
+		ByteBuffer out = ByteBuffer.allocate(reducedValues.length * 4);
+		for(int reducedValue : reducedValues)
+		{
+			out.putInt(reducedValue);
+		}
+		return out.array();
+	}
+
+	/**
+	 * Read back the ints written by {@link #encode(int[])}.
+	 *
+	 * @param encoded the encoded bytes.
+	 * @return the ontology ids.
+	 */
+	public int[] decode(byte[] encoded)
+	{
+		if(encoded.length % 4 != 0)
+		{
+			throw new IllegalArgumentException("Truncated payload");
+		}
+		ByteBuffer in = ByteBuffer.wrap(encoded);
+		int[] reducedValues = new int[encoded.length / 4];
+		for(int i = 0; i < reducedValues.length; i++)
+		{
+			reducedValues[i] = in.getInt();
+		}
+		return reducedValues;
+	}
+}
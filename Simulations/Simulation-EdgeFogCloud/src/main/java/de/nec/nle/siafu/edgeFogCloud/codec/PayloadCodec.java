@@ -0,0 +1,36 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+/**
+ * A way of encoding the reduced form of a package, the ontology ids of its
+ * disease, disease driver, symptom and transmission, before it leaves the
+ * Edge or Fog server that reduced it. The size of the encoded bytes is the
+ * size the package travels with, so codecs can be compared on the traffic
+ * they cause.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public interface PayloadCodec {
+
+	/**
+	 * @return the name of the codec, used to select it.
+	 */
+	String getName();
+
+	/**
+	 * Encode the reduced values of a package.
+	 *
+	 * @param reducedValues the ontology ids of the disease, disease driver,
+	 *            symptom and transmission, in this order.
+	 * @return the encoded bytes.
+	 */
+	byte[] encode(int[] reducedValues);
+
+	/**
+	 * Decode the bytes written by {@link #encode(int[])}.
+	 *
+	 * @param encoded the encoded bytes.
+	 * @return the ontology ids, in the order they were encoded.
+	 * @throws IllegalArgumentException if the bytes are truncated or corrupt.
+	 */
+	int[] decode(byte[] encoded);
+}
@@ -0,0 +1,69 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * Creates the payload codecs by name.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class PayloadCodecs {
+
+	/**
+	 * The key in config.xml that selects the codec used to reduce the
+	 * packages, "ids" (the default), "varint", "dictionary" or "deflate".
+	 */
+	public static final String CODEC_KEY = "codec";
+
+	/** The codec used when none is selected. */
+	public static final String DEFAULT_CODEC = "ids";
+
+	/**
+	 * Forbid the instantiation of this utility class.
+	 */
+	private PayloadCodecs() {
+		// Do nothing.
+	}
+
+	/**
+	 * Create the codec selected by the {@link #CODEC_KEY} of config.xml.
+	 *
+	 * @param config the simulation's configuration.
+	 * @return the codec.
+	 */
+	public static PayloadCodec create(Configuration config)
+	{
+		return create(config.getString(CODEC_KEY, DEFAULT_CODEC));
+	}
+
+	/**
+	 * Create a codec.
+	 *
+	 * @param name the name of the codec, "ids", "varint", "dictionary" or
+	 *            "deflate".
+	 * @return the codec.
+	 */
+	public static PayloadCodec create(String name)
+	{
+		if(name.equalsIgnoreCase("ids"))
+		{
+			return new IdPayloadCodec();
+		}
+		else if(name.equalsIgnoreCase("varint"))
+		{
+			return new VarintPayloadCodec();
+		}
+		else if(name.equalsIgnoreCase("dictionary"))
+		{
+			return new DictionaryPayloadCodec();
+		}
+		else if(name.equalsIgnoreCase("deflate"))
+		{
+			return new DeflatePayloadCodec();
+		}
+		else
+		{
+			throw new RuntimeException("Unknown payload codec " + name);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodes each ontology id as the difference with the previous one,
+ * zigzag-mapped so small negative differences stay small, in a variable
+ * number of bytes: seven bits per byte, the high bit telling whether another
+ * byte follows.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class VarintPayloadCodec implements PayloadCodec {
+
+	/**
+	 * @return "varint".
+	 */
+	public String getName()
+	{
+		return "varint";
+	}
+
+	/**
+	 * Write the deltas between the ids as varints.
+	 *
+	 * @param reducedValues the ontology ids.
+	 * @return between one and five bytes per id.
+	 */
+	public byte[] encode(int[] reducedValues)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(reducedValues.length * 5);
+		int previous = 0;
+		for(int reducedValue : reducedValues)
+		{
+			int delta = reducedValue - previous;
+			int zigzag = (delta << 1) ^ (delta >> 31);
+			while((zigzag & ~0x7F) != 0)
+			{
+				out.write((zigzag & 0x7F) | 0x80);
+				zigzag >>>= 7;
+			}
+			out.write(zigzag);
+			previous = reducedValue;
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Read back the varints written by {@link #encode(int[])}.
+	 *
+	 * @param encoded the encoded bytes.
+	 * @return the ontology ids.
+	 */
+	public int[] decode(byte[] encoded)
+	{
+		int[] reducedValues = new int[encoded.length];
+		int count = 0;
+		int previous = 0;
+		int position = 0;
+		while(position < encoded.length)
+		{
+			int zigzag = 0;
+			int shift = 0;
+			int current;
+			do {
+				if(position == encoded.length)
+				{
+					throw new IllegalArgumentException("Truncated payload");
+				}
+				if(shift > 28)
+				{
+					throw new IllegalArgumentException("Corrupt payload");
+				}
+				current = encoded[position++];
+				zigzag |= (current & 0x7F) << shift;
+				shift += 7;
+			} while((current & 0x80) != 0);
+			previous += (zigzag >>> 1) ^ -(zigzag & 1);
+			reducedValues[count++] = previous;
+		}
+		return Arrays.copyOf(reducedValues, count);
+	}
+}
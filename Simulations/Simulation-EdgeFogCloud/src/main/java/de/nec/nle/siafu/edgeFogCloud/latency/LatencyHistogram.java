@@ -0,0 +1,136 @@
+package de.nec.nle.siafu.edgeFogCloud.latency;
+
+/**
+ * A latency histogram with fixed memory, in the style of HdrHistogram: the
+ * values are counted in log-linear buckets, each power of two split in 32
+ * sub-buckets, so every value is kept with about 3% precision from one
+ * microsecond up to 2^41 microseconds, about 25 days, in less than 10 KB,
+ * whatever the amount of values recorded. Larger values are counted as the
+ * largest one.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class LatencyHistogram {
+
+	/** The bits of the values below which each value has its own bucket. */
+	private static final int SUB_BUCKET_BITS = 6;
+
+	/** The amount of sub-buckets each power of two is split in. */
+	private static final int SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+
+	/** The highest bit of the largest value kept, 2^41 - 1 microseconds (about 25 days). */
+	private static final int MAX_BIT = 40;
+
+	/** The amount of buckets. */
+	private static final int BUCKETS = (MAX_BIT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS + SUB_BUCKETS;
+
+	/** The count of each bucket. */
+	private final long[] counts = new long[BUCKETS];
+
+	/** The amount of values recorded. */
+	private long count;
+
+	/** The sum of the values recorded. */
+	private double sum;
+
+	/** The largest value recorded. */
+	private long max;
+
+	/**
+	 * Record a value.
+	 *
+	 * @param micros the latency, in microseconds. Negative values count as 0.
+	 */
+	public void record(long micros)
+	{
+		long value = Math.max(0, Math.min(micros, (1L << (MAX_BIT + 1)) - 1));
+		counts[getIndex(value)]++;
+		count++;
+		sum += value;
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Find the bucket of a value.
+	 *
+	 * @param value the value, between 0 and the largest one kept.
+	 * @return the index of the bucket.
+	 */
+	private static int getIndex(long value)
+	{
+		if(value < (SUB_BUCKETS << 1))
+		{
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Find the largest value counted in a bucket.
+	 *
+	 * @param index the index of the bucket.
+	 * @return the value.
+	 */
+	private static long getHighestValue(int index)
+	{
+		if(index < (SUB_BUCKETS << 1))
+		{
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * @return the amount of values recorded.
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * @return the mean of the values recorded, in microseconds.
+	 */
+	public double getMean()
+	{
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * @return the largest value recorded, in microseconds.
+	 */
+	public long getMax()
+	{
+		return max;
+	}
+
+	/**
+	 * Get a percentile of the values recorded.
+	 *
+	 * @param percentile the percentile, between 0 and 100.
+	 * @return the largest value of the bucket the percentile falls in, no
+	 *         larger than the largest value recorded, in microseconds, or 0
+	 *         if no value was recorded.
+	 */
+	public long getPercentile(double percentile)
+	{
+		if(count == 0)
+		{
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if(seen >= rank)
+			{
+				return Math.min(getHighestValue(i), max);
+			}
+		}
+		return max;
+	}
+}
@@ -0,0 +1,143 @@
+package de.nec.nle.siafu.edgeFogCloud.latency;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The latency histograms of the simulation, by name, e.g. "hop edge-fog",
+ * "tier fog", "app APP1" or "form reduced". The histograms are created the
+ * first time a latency is recorded under their name, and their percentiles
+ * can be appended to a CSV file, one row per histogram each time.
+ * <p>
+ * Published, the recorder shows the median and the 99th percentile of each
+ * histogram, only turned into text when the place it's in is flattened. The
+ * recorder is synchronized so it can also be exported when the simulation
+ * ends, from another thread.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class LatencyRecorder implements Publishable {
+
+	/** The percentiles exported. */
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	/** The header of the CSV file. */
+	private static final String HEADER = "iteration,histogram,count,mean_ms,p50_ms,p90_ms,p99_ms,p99.9_ms,max_ms";
+
+	/** The histograms, in the order they were created. */
+	private final LinkedHashMap<String, LatencyHistogram> histograms =
+			new LinkedHashMap<String, LatencyHistogram>();
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param name the name of the histogram.
+	 * @param seconds the latency, in seconds.
+	 */
+	public synchronized void record(String name, double seconds)
+	{
+		LatencyHistogram histogram = histograms.get(name);
+		if(histogram == null)
+		{
+			histogram = new LatencyHistogram();
+			histograms.put(name, histogram);
+		}
+		histogram.record(Math.round(seconds * 1e6));
+	}
+
+	/**
+	 * Get a histogram.
+	 *
+	 * @param name the name of the histogram.
+	 * @return the histogram, or null if nothing was recorded under that name.
+	 */
+	public synchronized LatencyHistogram get(String name)
+	{
+		return histograms.get(name);
+	}
+
+	/**
+	 * Append the percentiles of every histogram to a CSV file, writing the
+	 * header first if the file is new.
+	 *
+	 * @param file the CSV file.
+	 * @param iteration the iteration the percentiles were taken at.
+	 */
+	public synchronized void export(File file, long iteration)
+	{
+		boolean isNew = !file.isFile() || file.length() == 0;
+		try (BufferedWriter out = new BufferedWriter(new FileWriter(file, true))) {
+			if(isNew)
+			{
+				out.write(HEADER);
+				out.newLine();
+			}
+			for(Map.Entry<String, LatencyHistogram> entry : histograms.entrySet())
+			{
+				LatencyHistogram histogram = entry.getValue();
+				StringBuilder row = new StringBuilder();
+				row.append(iteration).append(',').append(entry.getKey()).append(',')
+						.append(histogram.getCount()).append(',').append(toMillis(histogram.getMean()));
+				for(double percentile : PERCENTILES)
+				{
+					row.append(',').append(toMillis(histogram.getPercentile(percentile)));
+				}
+				row.append(',').append(toMillis(histogram.getMax()));
+				out.write(row.toString());
+				out.newLine();
+			}
+		} catch (IOException e) {
+			System.err.println("Couldn't export the latencies to " + file + ": " + e);
+		}
+	}
+
+	/**
+	 * @param micros a latency in microseconds.
+	 * @return the latency in milliseconds, as text.
+	 */
+	private static String toMillis(double micros)
+	{
+		return String.format(Locale.ROOT, "%.3f", micros / 1000);
+	}
+
+	/**
+	 * @return the median and the 99th percentile of each histogram as text.
+	 */
+	public synchronized String toString()
+	{
+		if(histograms.isEmpty())
+		{
+			return "none";
+		}
+		StringBuilder text = new StringBuilder();
+		for(Map.Entry<String, LatencyHistogram> entry : histograms.entrySet())
+		{
+			if(text.length() > 0)
+			{
+				text.append("; ");
+			}
+			text.append(entry.getKey()).append(" p50 ").append(toMillis(entry.getValue().getPercentile(50)))
+					.append(" p99 ").append(toMillis(entry.getValue().getPercentile(99))).append(" ms");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Flatten the percentiles as text.
+	 *
+	 * @return a flatenned text with the percentiles.
+	 */
+	public FlatData flatten()
+	{
+		return new Text(toString()).flatten();
+	}
+}
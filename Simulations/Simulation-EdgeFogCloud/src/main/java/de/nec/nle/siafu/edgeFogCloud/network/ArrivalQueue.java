@@ -0,0 +1,178 @@
+package de.nec.nle.siafu.edgeFogCloud.network;
+
+import java.util.PriorityQueue;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * The arrivals of the packages in transit, as discrete events ordered by
+ * network time. Instead of moving the packages across the map, each hop is
+ * scheduled as one arrival, and each iteration fires the arrivals of the
+ * next timestep of network time. When nothing arrives in that timestep, the
+ * clock jumps straight to the next arrival, so idle stretches cost a single
+ * iteration. The caller limits the jump to the next event scheduled outside
+ * the queue, like an emission, or keeps it from jumping while anything else
+ * advances by iterations, like the service queues, which serve a rate per
+ * iteration.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class ArrivalQueue {
+
+	/** The scheduled arrivals, the earliest first. */
+	private final PriorityQueue<Arrival> arrivals = new PriorityQueue<Arrival>();
+
+	/** The network seconds each iteration covers. */
+	private final double timestep;
+
+	/** The current network time, in seconds. */
+	private double clock;
+
+	/** The network time the current iteration covers up to. */
+	private double horizon;
+
+	/** The amount of arrivals scheduled so far, which breaks ties in order. */
+	private long sequence;
+
+	/**
+	 * @param timestep the network seconds each iteration covers.
+	 */
+	public ArrivalQueue(double timestep)
+	{
+		this.timestep = timestep;
+	}
+
+	/**
+	 * Schedule the arrival of a package.
+	 *
+	 * @param a the package.
+	 * @param destination where it arrives.
+	 * @param delay the network seconds from now until it arrives.
+	 */
+	public void schedule(Agent a, Place destination, double delay)
+	{
+		arrivals.add(new Arrival(clock + delay, sequence++, a, destination));
+	}
+
+	/**
+	 * Start an iteration, covering the next timestep of network time, or,
+	 * if no arrival falls in it, up to the next arrival or the limit,
+	 * whichever comes first.
+	 *
+	 * @param limit the network time of the next event outside the queue,
+	 *            infinity if there's none, or at most the end of the
+	 *            timestep not to jump at all.
+	 */
+	public void startIteration(double limit)
+	{
+		horizon = clock + timestep;
+		Arrival next = arrivals.peek();
+		double jump = Math.min(next == null ? Double.POSITIVE_INFINITY : next.time, limit);
+		if(jump > horizon && jump != Double.POSITIVE_INFINITY)
+		{
+			horizon = jump;
+		}
+	}
+
+	/**
+	 * Take the next arrival of the current iteration, moving the clock to
+	 * its time. Arrivals scheduled meanwhile fire in the same iteration if
+	 * they fall in it.
+	 *
+	 * @return the arrival, or null when the iteration has no more arrivals,
+	 *         and the clock is at its end.
+	 */
+	public Arrival poll()
+	{
+		Arrival next = arrivals.peek();
+		if(next == null || next.time > horizon)
+		{
+			clock = horizon;
+			return null;
+		}
+		clock = next.time;
+		return arrivals.poll();
+	}
+
+	/**
+	 * @return the current network time, in seconds.
+	 */
+	public double getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * @return the amount of packages in transit.
+	 */
+	public int size()
+	{
+		return arrivals.size();
+	}
+
+	/**
+	 * The arrival of a package at a place.
+	 */
+	public static final class Arrival implements Comparable<Arrival> {
+		/** The network time of the arrival. */
+		private final double time;
+		/** The order it was scheduled in. */
+		private final long sequence;
+		/** The package. */
+		private final Agent agent;
+		/** Where it arrives. */
+		private final Place destination;
+
+		/**
+		 * @param time the network time of the arrival.
+		 * @param sequence the order it was scheduled in.
+		 * @param agent the package.
+		 * @param destination where it arrives.
+		 */
+		private Arrival(double time, long sequence, Agent agent, Place destination)
+		{
+			this.time = time;
+			this.sequence = sequence;
+			this.agent = agent;
+			this.destination = destination;
+		}
+
+		/**
+		 * @return the package.
+		 */
+		public Agent getAgent()
+		{
+			return agent;
+		}
+
+		/**
+		 * @return where it arrives.
+		 */
+		public Place getDestination()
+		{
+			return destination;
+		}
+
+		/**
+		 * @return the network time of the arrival.
+		 */
+		public double getTime()
+		{
+			return time;
+		}
+
+		/**
+		 * Order the arrivals by time, and then by the order they were
+		 * scheduled in.
+		 *
+		 * @param other the other arrival.
+		 * @return the comparison.
+		 */
+		public int compareTo(Arrival other)
+		{
+			int byTime = Double.compare(time, other.time);
+			return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package de.nec.nle.siafu.edgeFogCloud.network;
+
+/**
+ * The hops a package travels through between the tiers. Each hop has its own
+ * link in the {@link LinkModel}.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public enum Hop {
+	/** From an edge server to a fog server. */
+	EDGE_TO_FOG("edge-fog"),
+	/** From a house to a fog server. */
+	HOUSE_TO_FOG("house-fog"),
+	/** From a fog server to the cloud server. */
+	FOG_TO_CLOUD("fog-cloud"),
+	/** From the cloud server to a fog server. */
+	CLOUD_TO_FOG("cloud-fog"),
+	/** From a fog server to another one, when the first one is full. */
+	FOG_TO_FOG("fog-fog"),
+	/** From a fog server to an edge server. */
+	FOG_TO_EDGE("fog-edge"),
+	/** From a cloud server to another one, replicating what it ingested. */
+	CLOUD_TO_CLOUD("cloud-cloud");
+
+	/** The name of the hop in config.xml. */
+	private final String name;
+
+	/**
+	 * @param name the name of the hop in config.xml.
+	 */
+	private Hop(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Find out whether the hop is the first one of a trip.
+	 *
+	 * @return true if the hop leaves the origin of the package.
+	 */
+	public boolean isFromOrigin()
+	{
+		return this == EDGE_TO_FOG || this == HOUSE_TO_FOG;
+	}
+
+	/**
+	 * Get the hop that leaves an origin towards the fog servers.
+	 *
+	 * @param originType the type of the origin place.
+	 * @return EDGE_TO_FOG for edge servers, HOUSE_TO_FOG otherwise.
+	 */
+	public static Hop fromOrigin(String originType)
+	{
+		return originType.contains("Edge") ? EDGE_TO_FOG : HOUSE_TO_FOG;
+	}
+
+	/**
+	 * @return the name of the hop in config.xml.
+	 */
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,68 @@
+package de.nec.nle.siafu.edgeFogCloud.network;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A network link: a package takes the propagation latency, plus the time its
+ * bytes take at the bandwidth, plus a random jitter, to go through it.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+final class Link {
+
+	/** The bandwidth in bytes per second, 0 for no limit. */
+	private final double bandwidth;
+
+	/** The propagation latency in seconds. */
+	private final double latency;
+
+	/** The most the jitter adds to the latency, in seconds. */
+	private final double jitter;
+
+	/**
+	 * @param bandwidth the bandwidth in bytes per second, 0 for no limit.
+	 * @param latency the propagation latency in seconds.
+	 * @param jitter the most the jitter adds to the latency, in seconds.
+	 */
+	Link(double bandwidth, double latency, double jitter)
+	{
+		if(bandwidth < 0 || latency < 0 || jitter < 0)
+		{
+			throw new RuntimeException("Links can't have a negative bandwidth, latency or jitter");
+		}
+		this.bandwidth = bandwidth;
+		this.latency = latency;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * Calculate how long a package takes to go through the link.
+	 *
+	 * @param bytes the size of the package.
+	 * @return the transit time in seconds.
+	 */
+	double getTransitTime(int bytes)
+	{
+		double time = latency;
+		if(bandwidth > 0)
+		{
+			time += bytes / bandwidth;
+		}
+		if(jitter > 0)
+		{
+			time += ThreadLocalRandom.current().nextDouble(jitter);
+		}
+		return time;
+	}
+
+	/**
+	 * Calculate how long a package takes to go through the link on average.
+	 *
+	 * @param bytes the size of the package.
+	 * @return the mean transit time in seconds.
+	 */
+	double getExpectedTime(int bytes)
+	{
+		return latency + (bandwidth > 0 ? bytes / bandwidth : 0) + jitter / 2;
+	}
+}
@@ -0,0 +1,112 @@
+package de.nec.nle.siafu.edgeFogCloud.network;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * The links between the tiers, read from the links section of config.xml,
+ * e.g. &lt;link hop="edge-fog" bandwidth="12500" latency="0.02"
+ * jitter="0.005"/&gt;, with the bandwidth in bytes per second and the times
+ * in seconds. Hops that aren't listed take no time.
+ * <p>
+ * The transit times are measured in network seconds, which are usually far
+ * shorter than an iteration of the simulation. The timestep attribute of the
+ * links section tells how many network seconds each iteration animates, so
+ * the packages can be seen moving; it defaults to the iteration step.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class LinkModel {
+
+	/** The link of each hop, by ordinal. */
+	private final Link[] links = new Link[Hop.values().length];
+
+	/** The network seconds each iteration animates. */
+	private final double timestep;
+
+	/**
+	 * Read the links from the simulation configuration.
+	 *
+	 * @param config the simulation configuration.
+	 */
+	public LinkModel(Configuration config)
+	{
+		timestep = config.getDouble("links[@timestep]", config.getInt("iterationstep", 1));
+		if(timestep <= 0)
+		{
+			throw new RuntimeException("The links timestep must be positive");
+		}
+		for(Hop hop : Hop.values())
+		{
+			links[hop.ordinal()] = new Link(0, 0, 0);
+		}
+		String[] hops = config.getStringArray("links.link[@hop]");
+		for(int i = 0; i < hops.length; i++)
+		{
+			String link = "links.link(" + i + ")";
+			links[getHop(hops[i]).ordinal()] = new Link(config.getDouble(link + "[@bandwidth]", 0),
+					config.getDouble(link + "[@latency]", 0), config.getDouble(link + "[@jitter]", 0));
+		}
+	}
+
+	/**
+	 * Find a hop by its name in config.xml.
+	 *
+	 * @param name the name, e.g. "edge-fog".
+	 * @return the hop.
+	 */
+	private static Hop getHop(String name)
+	{
+		for(Hop hop : Hop.values())
+		{
+			if(hop.toString().equals(name.trim()))
+			{
+				return hop;
+			}
+		}
+		throw new RuntimeException("Unknown link hop " + name);
+	}
+
+	/**
+	 * Calculate how long a package takes to go through a hop.
+	 *
+	 * @param hop the hop.
+	 * @param bytes the size of the package.
+	 * @return the transit time in network seconds.
+	 */
+	public double getTransitTime(Hop hop, int bytes)
+	{
+		return links[hop.ordinal()].getTransitTime(bytes);
+	}
+
+	/**
+	 * Calculate how long a package takes to go through a hop on average,
+	 * to estimate the cost of a hop before taking it.
+	 *
+	 * @param hop the hop.
+	 * @param bytes the size of the package.
+	 * @return the mean transit time in network seconds.
+	 */
+	public double getExpectedTime(Hop hop, int bytes)
+	{
+		return links[hop.ordinal()].getExpectedTime(bytes);
+	}
+
+	/**
+	 * @return the network seconds each iteration animates.
+	 */
+	public double getTimestep()
+	{
+		return timestep;
+	}
+
+	/**
+	 * Calculate how many iterations animate a transit time.
+	 *
+	 * @param seconds the transit time in network seconds.
+	 * @return the iterations, at least one.
+	 */
+	public int getIterations(double seconds)
+	{
+		return Math.max(1, (int) Math.ceil(seconds / timestep));
+	}
+}
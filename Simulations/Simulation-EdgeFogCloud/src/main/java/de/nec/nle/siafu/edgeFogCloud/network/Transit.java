@@ -0,0 +1,217 @@
+package de.nec.nle.siafu.edgeFogCloud.network;
+
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The hop a package is going through, when it arrives and how much network
+ * time its trip has taken since it left its origin. The transit also keeps
+ * the network clock at the start of the hop and of the trip, and at the
+ * arrival once it's stamped, to measure the latencies.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class Transit implements Publishable {
+
+	/** The hop. */
+	private final Hop hop;
+
+	/** The transit time of the hop, in network seconds. */
+	private final double seconds;
+
+	/** The iteration the package reaches the end of the hop. */
+	private final long arrival;
+
+	/** The transit time of the trip so far, including this hop. */
+	private final double tripSeconds;
+
+	/** The network clock when the hop started. */
+	private final double departedAt;
+
+	/** The network clock when the trip started. */
+	private final double tripStartedAt;
+
+	/** Whether the payload was reduced when the trip started. */
+	private final boolean reducedTrip;
+
+	/** The network clock when the package arrived, NaN until it's stamped. */
+	private final double arrivedAt;
+
+	/** The hops of the trip so far, including this one. */
+	private final int tripHops;
+
+	/**
+	 * @param hop the hop.
+	 * @param seconds the transit time of the hop, in network seconds.
+	 * @param arrival the iteration the package reaches the end of the hop.
+	 * @param tripSeconds the transit time of the trip so far, including this hop.
+	 * @param departedAt the network clock when the hop started.
+	 * @param tripStartedAt the network clock when the trip started.
+	 * @param reducedTrip whether the payload was reduced when the trip started.
+	 * @param arrivedAt the network clock when the package arrived, or NaN.
+	 * @param tripHops the hops of the trip so far, including this one.
+	 */
+	private Transit(Hop hop, double seconds, long arrival, double tripSeconds,
+			double departedAt, double tripStartedAt, boolean reducedTrip, double arrivedAt,
+			int tripHops)
+	{
+		this.hop = hop;
+		this.seconds = seconds;
+		this.arrival = arrival;
+		this.tripSeconds = tripSeconds;
+		this.departedAt = departedAt;
+		this.tripStartedAt = tripStartedAt;
+		this.reducedTrip = reducedTrip;
+		this.arrivedAt = arrivedAt;
+		this.tripHops = tripHops;
+	}
+
+	/**
+	 * Start a hop. Hops that leave the origin start a new trip, and the other
+	 * ones carry on the trip of the previous hop.
+	 *
+	 * @param previous the previous hop of the package, or anything else if
+	 *            it had none.
+	 * @param hop the hop.
+	 * @param seconds the transit time of the hop, in network seconds.
+	 * @param arrival the iteration the package reaches the end of the hop.
+	 * @param now the network clock.
+	 * @param reduced whether the payload is reduced.
+	 * @return the transit.
+	 */
+	public static Transit start(Object previous, Hop hop, double seconds, long arrival,
+			double now, boolean reduced)
+	{
+		if(!hop.isFromOrigin() && previous instanceof Transit)
+		{
+			Transit trip = (Transit) previous;
+			return new Transit(hop, seconds, arrival, trip.tripSeconds + seconds,
+					now, trip.tripStartedAt, trip.reducedTrip, Double.NaN, trip.tripHops + 1);
+		}
+		return new Transit(hop, seconds, arrival, seconds, now, now, reduced, Double.NaN, 1);
+	}
+
+	/**
+	 * Mark the hop as over, for the hops whose arrival wasn't known when
+	 * they started.
+	 *
+	 * @param iteration the iteration the package arrived.
+	 * @return the transit, arrived at that iteration.
+	 */
+	public Transit arrived(long iteration)
+	{
+		return new Transit(hop, seconds, iteration, tripSeconds, departedAt,
+				tripStartedAt, reducedTrip, arrivedAt, tripHops);
+	}
+
+	/**
+	 * Stamp the network clock of the arrival.
+	 *
+	 * @param now the network clock.
+	 * @return the transit, stamped.
+	 */
+	public Transit stamp(double now)
+	{
+		return new Transit(hop, seconds, arrival, tripSeconds, departedAt,
+				tripStartedAt, reducedTrip, now, tripHops);
+	}
+
+	/**
+	 * @return true if the arrival was stamped.
+	 */
+	public boolean isStamped()
+	{
+		return !Double.isNaN(arrivedAt);
+	}
+
+	/**
+	 * @return the network clock when the hop started.
+	 */
+	public double getDepartedAt()
+	{
+		return departedAt;
+	}
+
+	/**
+	 * @return the network clock when the package arrived, NaN until it's stamped.
+	 */
+	public double getArrivedAt()
+	{
+		return arrivedAt;
+	}
+
+	/**
+	 * @return the network clock when the trip started.
+	 */
+	public double getTripStartedAt()
+	{
+		return tripStartedAt;
+	}
+
+	/**
+	 * @return the hops of the trip so far, including this one.
+	 */
+	public int getTripHops()
+	{
+		return tripHops;
+	}
+
+	/**
+	 * @return whether the payload was reduced when the trip started.
+	 */
+	public boolean isReducedTrip()
+	{
+		return reducedTrip;
+	}
+
+	/**
+	 * @return the hop.
+	 */
+	public Hop getHop()
+	{
+		return hop;
+	}
+
+	/**
+	 * @return the transit time of the hop, in network seconds.
+	 */
+	public double getSeconds()
+	{
+		return seconds;
+	}
+
+	/**
+	 * @return the iteration the package reaches the end of the hop.
+	 */
+	public long getArrival()
+	{
+		return arrival;
+	}
+
+	/**
+	 * @return the transit time of the trip so far, in network seconds.
+	 */
+	public double getTripSeconds()
+	{
+		return tripSeconds;
+	}
+
+	/**
+	 * @return the hop and the transit times as text.
+	 */
+	public String toString()
+	{
+		return String.format("%s %.4f s (trip %.4f s)", hop, seconds, tripSeconds);
+	}
+
+	/**
+	 * Flatten the transit as text.
+	 *
+	 * @return a flatenned text with the transit.
+	 */
+	public FlatData flatten()
+	{
+		return new Text(toString()).flatten();
+	}
+}
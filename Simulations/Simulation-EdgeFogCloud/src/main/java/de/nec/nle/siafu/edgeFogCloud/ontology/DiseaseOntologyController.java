@@ -1,86 +1,211 @@
 package de.nec.nle.siafu.edgeFogCloud.ontology;
 
 
-import java.util.Iterator;
-import java.util.Random;
-import java.util.stream.Stream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import org.semanticweb.owlapi.apibinding.OWLManager;
-import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
-import org.semanticweb.owlapi.io.StreamDocumentSource;
-import org.semanticweb.owlapi.model.IRI;
-import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
-import org.semanticweb.owlapi.model.OWLClass;
-import org.semanticweb.owlapi.model.OWLDataFactory;
-import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.OWLOntologyCreationException;
-import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.control.Controller;
 
 /**
  * This class handles the Ontology.
+ * <p>
+ * The ontology is loaded once per JVM into tables that are never changed
+ * afterwards, so the shared instance can be used from any thread without
+ * locking. The random sampling draws from the random source of the calling
+ * thread, or from the one passed in.
  * 
  * @author João Pedro de Souza Jardim da Costa
  */
 public class DiseaseOntologyController {
 	
-	private static final DiseaseOntologyController instance = new DiseaseOntologyController();
-	private OWLOntology diseaseOntology,symptomOntology,transmissionOntology,diseaseDriverOntology;
-	private String namespace;
+	/** The namespace of the classes. */
+	static final String NAMESPACE = "http://purl.obolibrary.org/obo/";
+	
+	/** The IRIs of the imported sub-ontologies. */
+	static final String DISEASE_DRIVER_ONTOLOGY = "http://purl.obolibrary.org/obo/doid/imports/disdriv_import.owl";
+	static final String SYMPTOM_ONTOLOGY = "http://purl.obolibrary.org/obo/doid/imports/symp_import.owl";
+	static final String TRANSMISSION_ONTOLOGY = "http://purl.obolibrary.org/obo/doid/imports/trans_import.owl";
+	
+	/** The OWL file, in the resources folder. */
+	private static final String ONTOLOGY_RESOURCE = "/ontology/Human-Disease-Ontology.owl";
+	
+	/** Where local copies of the imports are looked up, by file name, before fetching them. */
+	private static final String IMPORTS_RESOURCE = "/ontology/imports/";
+	
+	/** Where the snapshots of the ontology indexes are kept between runs. */
+	private static final String SNAPSHOT_PATH = Controller.CONFIG_PATH + File.separator
+			+ "OntologySnapshots" + File.separator;
+	
+	/**
+	 * The key in config.xml that selects the backend reading the OWL file,
+	 * "owlapi" (the default) or "streaming".
+	 */
+	public static final String BACKEND_KEY = "ontology[@backend]";
+	
+	/** The backend used when none is selected. */
+	public static final String DEFAULT_BACKEND = "owlapi";
+	
+	/** The backend the ontology is loaded with, set by configure. */
+	private static String backendName = DEFAULT_BACKEND;
+	
+	/** The position of each sub-ontology in the snapshot. */
+	static final int DISEASE = 0, DISEASE_DRIVER = 1, SYMPTOM = 2, TRANSMISSION = 3;
+	
+	/** The class prefix and id digit of each sub-ontology. */
+	static final String[][] DISEASE_PREFIXES = {{"DOID_", "1"}};
+	static final String[][] DISEASE_DRIVER_PREFIXES =
+		{{"DISDRIV_", "2"}, {"CHEBI_", "3"}, {"ExO_", "4"}, {"NCIT_C", "5"}};
+	static final String[][] SYMPTOM_PREFIXES = {{"SYMP_", "6"}};
+	static final String[][] TRANSMISSION_PREFIXES = {{"TRANS_", "7"}};
+	
+	/** Up to this amount of packages, a batch is translated without splitting it. */
+	private static final int BATCH_THRESHOLD = 512;
+	
+	/** The label and reduced id lookup tables of each sub-ontology. */
+	private final OntologyIndex diseaseIndex,symptomIndex,transmissionIndex,diseaseDriverIndex;
+	
+	/** The same tables, at the positions DISEASE, DISEASE_DRIVER, SYMPTOM and TRANSMISSION. */
+	private final OntologyIndex[] indexes;
+	
+	/** Holds the shared instance, so the ontology is only loaded when it's first used. */
+	private static class InstanceHolder {
+		private static final DiseaseOntologyController instance = new DiseaseOntologyController();
+	}
 	
 	/**
 	 * The class constructor. Initializes the ontology by loading a pre-made one.
+	 * The tables are only reachable through final fields, so they are safely
+	 * published to every thread once the constructor returns. Private, so the
+	 * ontology is only loaded once; use getInstance.
 	 * 
 	 */
-	public DiseaseOntologyController() {
-		loadOntology();
+	private DiseaseOntologyController() {
+		indexes = loadOntology();
+		diseaseIndex = indexes[DISEASE];
+		diseaseDriverIndex = indexes[DISEASE_DRIVER];
+		symptomIndex = indexes[SYMPTOM];
+		transmissionIndex = indexes[TRANSMISSION];
 	}
 	
     public static DiseaseOntologyController getInstance() {
-        return instance;
+        return InstanceHolder.instance;
     }
 	
 	/**
-	 * Load the ontology Human-Disease-Ontology-Compact.owl from the resources folder.
+	 * Select the backend from the simulation's configuration. The ontology
+	 * is loaded once per JVM, so this only has an effect before the first
+	 * call to getInstance.
+	 * 
+	 * @param config the simulation's configuration.
 	 */
-	private void loadOntology()
+	public static synchronized void configure(Configuration config)
 	{
-		 OWLOntologyManager om = OWLManager.createOWLOntologyManager();
-		 
-		 OWLOntologyDocumentSource diseaseOntologySource = 
-				 new StreamDocumentSource(getClass().getResourceAsStream("/ontology/Human-Disease-Ontology.owl"));
-		 try {
-			System.out.println("Loading ontologies");
-	
-			diseaseOntology = om.loadOntologyFromOntologyDocument(diseaseOntologySource);
-			Iterator<OWLOntology> ontologiesIterator = om.ontologies().iterator();
-			
-			while(ontologiesIterator.hasNext())
-			{
-				OWLOntology currentOntology = ontologiesIterator.next();
-				if(currentOntology.getOntologyID().getOntologyIRI().toString()
-						.equals("Optional[http://purl.obolibrary.org/obo/doid/imports/disdriv_import.owl]"))
-				{
-					diseaseDriverOntology = currentOntology;
-				}
-				else if(currentOntology.getOntologyID().getOntologyIRI().toString()
-						.equals("Optional[http://purl.obolibrary.org/obo/doid/imports/symp_import.owl]"))
-				{
-					symptomOntology = currentOntology;
-				}
-				else if(currentOntology.getOntologyID().getOntologyIRI().toString()
-						.equals("Optional[http://purl.obolibrary.org/obo/doid/imports/trans_import.owl]"))
-				{
-					transmissionOntology = currentOntology;
-				}
+		backendName = config.getString(BACKEND_KEY, DEFAULT_BACKEND);
+	}
+	
+	/**
+	 * @return the name of the backend the ontology is loaded with.
+	 */
+	private static synchronized String getBackendName()
+	{
+		return backendName;
+	}
+	
+	/**
+	 * Load the indexes of the ontology Human-Disease-Ontology.owl from the resources
+	 * folder. The indexes are read from the snapshot of a previous run when it was
+	 * built from the same OWL file and imports by the same backend, otherwise the
+	 * ontology is read by the backend and a new snapshot is written. The imports
+	 * count with the contents of their local copy, or by their IRI when they're
+	 * fetched, so a fetched import is trusted to follow the release of the OWL
+	 * file that names it.
+	 * 
+	 * @return the indexes of the sub-ontologies.
+	 */
+	private OntologyIndex[] loadOntology()
+	{
+		OntologyBackend backend = createBackend(getBackendName());
+		
+		InputStream owl = getClass().getResourceAsStream(ONTOLOGY_RESOURCE);
+		if(owl == null)
+		{
+			throw new RuntimeException("Couldn't find the ontology " + ONTOLOGY_RESOURCE);
+		}
+		LinkedHashMap<String, InputStream> imports = new LinkedHashMap<String, InputStream>();
+		for(String iri : new String[] {DISEASE_DRIVER_ONTOLOGY, SYMPTOM_ONTOLOGY, TRANSMISSION_ONTOLOGY})
+		{
+			imports.put(iri, openLocalImport(iri));
+		}
+		byte[] checksum;
+		try {
+			checksum = OntologySnapshot.checksum(owl, imports);
+		} catch (IOException e) {
+			throw new RuntimeException("Couldn't read the provided ontology ", e);
+		}
+		
+		File snapshotFile = new File(SNAPSHOT_PATH
+				+ "Human-Disease-Ontology-" + backend.getName() + ".snapshot");
+		OntologyIndex[] indexes = OntologySnapshot.read(snapshotFile, checksum);
+		if(indexes != null)
+		{
+			System.out.println("Loading ontologies from " + snapshotFile);
+		}
+		else
+		{
+			indexes = backend.buildIndexes(getClass().getResourceAsStream(ONTOLOGY_RESOURCE));
+			try {
+				OntologySnapshot.write(snapshotFile, checksum, indexes);
+			} catch (IOException e) {
+				System.err.println("Couldn't write the ontology snapshot " + snapshotFile + ": " + e);
 			}
-			
-			namespace = "http://purl.obolibrary.org/obo/";
-			
-			System.out.println("Loading Complete");
-		} catch (OWLOntologyCreationException e) {
-			throw new RuntimeException("Couldn't create the provided ontology ", e);
+		}
+		
+		System.out.println("Loading Complete");
+		return indexes;
+	}
+	
+	/**
+	 * Open the local copy of an import, in the resources folder.
+	 * 
+	 * @param iri the IRI of the import.
+	 * @return the contents of the copy, or null if there's none.
+	 */
+	static InputStream openLocalImport(String iri)
+	{
+		return DiseaseOntologyController.class.getResourceAsStream(
+				IMPORTS_RESOURCE + iri.substring(iri.lastIndexOf('/') + 1));
+	}
+	
+	/**
+	 * Create the backend that reads the OWL file.
+	 * 
+	 * @param name the name of the backend, "owlapi" or "streaming".
+	 * @return the backend.
+	 */
+	private OntologyBackend createBackend(String name)
+	{
+		if(name.equalsIgnoreCase("streaming"))
+		{
+			return new StreamingOntologyBackend();
+		}
+		else if(name.equalsIgnoreCase("owlapi"))
+		{
+			return new OWLAPIOntologyBackend();
+		}
+		else
+		{
+			throw new RuntimeException("Unknown ontology backend " + name);
 		}
 	}
+	
 	/**
 	 * returns a combination of random values from Disease, Symptom, Disease Drive and Transmission
 	 * classes from the Ontology
@@ -89,65 +214,52 @@ public class DiseaseOntologyController {
 	 */
 	public String getRandomSetOfValues()
 	{
-		OWLOntologyManager om = diseaseOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-		
-		Stream<OWLClass> diseaseSubClasses = diseaseOntology.classesInSignature()
-				.filter(classe-> classe.getIRI().toString().contains("DOID"))
-				.filter(classe -> diseaseOntology.subClassAxiomsForSuperClass(classe).count()==0);
-		Stream<OWLClass> diseaseDriverSubClasses = diseaseDriverOntology.classesInSignature()
-				.filter(classe-> diseaseDriverOntology.subClassAxiomsForSuperClass(classe).count()==0);
-		Stream<OWLClass> symptomSubClasses = symptomOntology.classesInSignature()
-				.filter(classe-> symptomOntology.subClassAxiomsForSuperClass(classe).count()==0);
-		Stream<OWLClass> transmissionSubClasses = transmissionOntology.classesInSignature()
-				.filter(classe-> transmissionOntology.subClassAxiomsForSuperClass(classe).count()==0);
-
-		int diseaseRandomPosistion = getRandomInt(11347);
-		int diseaseDriverRandomPosistion = getRandomInt(9);
-		int symptomRandomPosistion = getRandomInt(713);
-		int transmissionRandomPosistion = getRandomInt(20);
-		
-		OWLClass diseaseRandomSubCLass = (OWLClass) diseaseSubClasses.toArray()[diseaseRandomPosistion];
-		OWLClass diseaseDriverRandomSubClass = (OWLClass) diseaseDriverSubClasses.toArray()[diseaseDriverRandomPosistion];
-		OWLClass symptomRandomSubClass = (OWLClass) symptomSubClasses.toArray()[symptomRandomPosistion];
-		OWLClass transmissionRandomSubClass = (OWLClass) transmissionSubClasses.toArray()[transmissionRandomPosistion];
-		
-
-		Iterator<OWLAnnotationAssertionAxiom> diseaseSubClassAnnotationsIterator =
-				diseaseOntology.annotationAssertionAxioms(diseaseRandomSubCLass.getIRI()).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
-		Iterator<OWLAnnotationAssertionAxiom> diseaseDriverSubClassAnnotationsIterator =
-				diseaseDriverOntology.annotationAssertionAxioms(diseaseDriverRandomSubClass.getIRI()).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
-		Iterator<OWLAnnotationAssertionAxiom> symptomSubClassAnnotationsIterator =
-				symptomOntology.annotationAssertionAxioms(symptomRandomSubClass.getIRI()).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
-		Iterator<OWLAnnotationAssertionAxiom> transmissionSubClassAnnotationsIterator =
-				transmissionOntology.annotationAssertionAxioms(transmissionRandomSubClass.getIRI()).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
-
-		OWLAnnotationAssertionAxiom randomDiseaseLabel = diseaseSubClassAnnotationsIterator.next();
-		OWLAnnotationAssertionAxiom randomDiseaseDriveLabel = diseaseDriverSubClassAnnotationsIterator.next();
-		OWLAnnotationAssertionAxiom randomSymptomLabel = symptomSubClassAnnotationsIterator.next();
-		OWLAnnotationAssertionAxiom randomTransmissionLabel = transmissionSubClassAnnotationsIterator.next();
-		
-		String randomDiseaseString = randomDiseaseLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
-		String randomDiseaseDriveString = randomDiseaseDriveLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
-		String randomSymptomString = randomSymptomLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
-		String randomTransmissionString = randomTransmissionLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
+		String randomDiseaseString = diseaseIndex.getLeafLabel(getRandomInt(diseaseIndex.getLeafCount()));
+		String randomDiseaseDriveString = diseaseDriverIndex.getLeafLabel(getRandomInt(diseaseDriverIndex.getLeafCount()));
+		String randomSymptomString = symptomIndex.getLeafLabel(getRandomInt(symptomIndex.getLeafCount()));
+		String randomTransmissionString = transmissionIndex.getLeafLabel(getRandomInt(transmissionIndex.getLeafCount()));
 		
 		String setRandomValue = randomDiseaseString.concat(";;").concat(randomDiseaseDriveString)
 				.concat(";;").concat(randomSymptomString).concat(";;").concat(randomTransmissionString);
 		
-		getReducedDiseaseValue(randomDiseaseString);
-		
 		return setRandomValue;
 	}
 	
+	/**
+	 * returns a combination of the ids of random Disease, Disease Driver, Symptom and
+	 * Transmission classes from the Ontology, the reduced form of getRandomSetOfValues.
+	 * 
+	 * @return an array with the ids of the disease, disease driver, symptom and transmission.
+	 */
+	public int[] getRandomSetOfReducedValues()
+	{
+		int[] randomValues = new int[4];
+		randomValues[DISEASE] = diseaseIndex.getLeafValue(getRandomInt(diseaseIndex.getLeafCount()));
+		randomValues[DISEASE_DRIVER] = diseaseDriverIndex.getLeafValue(getRandomInt(diseaseDriverIndex.getLeafCount()));
+		randomValues[SYMPTOM] = symptomIndex.getLeafValue(getRandomInt(symptomIndex.getLeafCount()));
+		randomValues[TRANSMISSION] = transmissionIndex.getLeafValue(getRandomInt(transmissionIndex.getLeafCount()));
+		return randomValues;
+	}
+	
+	/**
+	 * returns a combination of the ids of random Disease, Disease Driver, Symptom and
+	 * Transmission classes from the Ontology, drawn from the random source provided.
+	 * A worker thread holding its own split of a seeded SplittableRandom gets the same
+	 * sequence on every run.
+	 * 
+	 * @param random the random source, only used by the calling thread.
+	 * @return an array with the ids of the disease, disease driver, symptom and transmission.
+	 */
+	public int[] getRandomSetOfReducedValues(SplittableRandom random)
+	{
+		int[] randomValues = new int[4];
+		randomValues[DISEASE] = diseaseIndex.getLeafValue(random.nextInt(diseaseIndex.getLeafCount()));
+		randomValues[DISEASE_DRIVER] = diseaseDriverIndex.getLeafValue(random.nextInt(diseaseDriverIndex.getLeafCount()));
+		randomValues[SYMPTOM] = symptomIndex.getLeafValue(random.nextInt(symptomIndex.getLeafCount()));
+		randomValues[TRANSMISSION] = transmissionIndex.getLeafValue(random.nextInt(transmissionIndex.getLeafCount()));
+		return randomValues;
+	}
+	
 	public String getReducedValue(String packageOriginalData)
 	{
 		String[] packageSplitData = packageOriginalData.split(";;");
@@ -179,26 +291,7 @@ public class DiseaseOntologyController {
 	 */
 	public int getReducedDiseaseValue(String diseaseLabel)
 	{
-		OWLOntologyManager om = diseaseOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-
-		Stream<OWLClass> diseaseClasses = diseaseOntology.classesInSignature()
-		.filter(classe -> diseaseOntology.annotationAssertionAxioms(classe.getIRI())
-				.filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel()))
-				.filter(annotation -> annotation.getValue().components()
-						.filter(component -> !component.toString().contains("http"))
-						.iterator().next().toString().equals(diseaseLabel)
-						)
-				.count() != 0
-				);
-		
-		String classIRI = diseaseClasses.findFirst().get().getIRI().toString();
-		classIRI = classIRI.replaceFirst(namespace, "");
-		classIRI = classIRI.replaceFirst("DOID_", "1");
-		int reducedValue = Integer.parseInt(classIRI, 10);
-		
-
-		return reducedValue;
+		return diseaseIndex.getReducedValue(diseaseLabel);
 	}
 	
 	/**
@@ -212,28 +305,7 @@ public class DiseaseOntologyController {
 	 */
 	public int getReducedDiseaseDriverValue(String diseaseDriverLabel)
 	{
-		
-		OWLOntologyManager om = diseaseDriverOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-
-		Stream<OWLClass> diseaseDriveClasses = diseaseDriverOntology.classesInSignature()
-		.filter(classe -> diseaseDriverOntology.annotationAssertionAxioms(classe.getIRI())
-				.filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel()))
-				.filter(annotation -> annotation.getValue().components()
-						.filter(component -> !component.toString().contains("http"))
-						.iterator().next().toString().equals(diseaseDriverLabel)
-						)
-				.count() != 0
-				);
-		String classIRI = diseaseDriveClasses.findFirst().get().getIRI().toString();
-		classIRI = classIRI.replaceFirst(namespace, "");
-		classIRI = classIRI.replaceFirst("DISDRIV_", "2");
-		classIRI = classIRI.replaceFirst("CHEBI_", "3");
-		classIRI = classIRI.replaceFirst("ExO_", "4");
-		classIRI = classIRI.replaceFirst("NCIT_C", "5");
-		int reducedValue = Integer.parseInt(classIRI, 10);
-		
-		return reducedValue;
+		return diseaseDriverIndex.getReducedValue(diseaseDriverLabel);
 	}
 	
 	/**
@@ -247,25 +319,7 @@ public class DiseaseOntologyController {
 	 */
 	public int getReducedSymptomValue(String symptomLabel)
 	{
-		
-		OWLOntologyManager om = symptomOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-
-		Stream<OWLClass> symptomClasses = symptomOntology.classesInSignature()
-		.filter(classe -> symptomOntology.annotationAssertionAxioms(classe.getIRI())
-				.filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel()))
-				.filter(annotation -> annotation.getValue().components()
-						.filter(component -> !component.toString().contains("http"))
-						.iterator().next().toString().equals(symptomLabel)
-						)
-				.count() != 0
-				);
-		String classIRI = symptomClasses.findFirst().get().getIRI().toString();
-		classIRI = classIRI.replaceFirst(namespace, "");
-		classIRI = classIRI.replaceFirst("SYMP_", "6");
-		int reducedValue = Integer.parseInt(classIRI, 10);
-		
-		return reducedValue;
+		return symptomIndex.getReducedValue(symptomLabel);
 	}
 	
 	/**
@@ -279,25 +333,7 @@ public class DiseaseOntologyController {
 	 */
 	public int getReducedTranmissionValue(String transmissionLabel)
 	{
-		
-		OWLOntologyManager om = transmissionOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-
-		Stream<OWLClass> transmissionClasses = transmissionOntology.classesInSignature()
-		.filter(classe -> transmissionOntology.annotationAssertionAxioms(classe.getIRI())
-				.filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel()))
-				.filter(annotation -> annotation.getValue().components()
-						.filter(component -> !component.toString().contains("http"))
-						.iterator().next().toString().equals(transmissionLabel)
-						)
-				.count() != 0
-				);
-		String classIRI = transmissionClasses.findFirst().get().getIRI().toString();
-		classIRI = classIRI.replaceFirst(namespace, "");
-		classIRI = classIRI.replaceFirst("TRANS_", "7");
-		int reducedValue = Integer.parseInt(classIRI, 10);
-		
-		return reducedValue;
+		return transmissionIndex.getReducedValue(transmissionLabel);
 	}
 	
 	/**
@@ -310,129 +346,304 @@ public class DiseaseOntologyController {
 	 */
 	public String getOriginalValue(int id)
 	{	
-		String idString = String.valueOf(id);
-		char classIdentifier = idString.charAt(0);
-		idString = idString.substring(1);
-		String classIri = namespace;
-		String classLabel=null;
+		return getIndex(id).getLabel(id);
+	}
+	
+	/**
+	 * returns whether a set of ids names a class of each sub-ontology, the
+	 * Disease, Disease Driver, Symptom and Transmission, in this order.
+	 * 
+	 * @param reducedValues the ids of a package.
+	 * 
+	 * @return true if every id is a class of the sub-ontology at its position.
+	 */
+	public boolean isReducedSet(int[] reducedValues)
+	{
+		if(reducedValues.length != indexes.length)
+		{
+			return false;
+		}
+		for(int i = 0; i < reducedValues.length; i++)
+		{
+			if(getIndex(reducedValues[i]) != indexes[i] || !indexes[i].contains(reducedValues[i]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * returns the id of an ancestor of the class with the ID provided, going up
+	 * its first superclass in the same sub-ontology.
+	 * 
+	 * @param id the id of the class.
+	 * @param levels how many superclasses to go up.
+	 * 
+	 * @return The id of the ancestor, or of the root it reached first.
+	 */
+	public int getAncestor(int id, int levels)
+	{
+		OntologyIndex index = getIndex(id);
+		int ancestor = id;
+		for(int i = 0; i < levels; i++)
+		{
+			int parent = index.getParent(ancestor);
+			if(parent == ancestor)
+			{
+				break;
+			}
+			ancestor = parent;
+		}
+		return ancestor;
+	}
+	
+	/**
+	 * returns the index of the sub-ontology of the ID provided,
+	 * told by its first digit.
+	 * 
+	 * @param id the id of a class.
+	 * 
+	 * @return The index of the sub-ontology.
+	 */
+	private OntologyIndex getIndex(int id)
+	{
+		char classIdentifier = String.valueOf(id).charAt(0);
 		switch (classIdentifier)
 		{
 			case '1':
-				classIri = classIri.concat("DOID_").concat(idString);
-				classLabel = getOriginalValueFromDiseaseOntology(classIri);
-				break;
+				return diseaseIndex;
 			case '2':
-				classIri = classIri.concat("DISDRIV_").concat(idString);
-				classLabel = getOriginalValueFromDiseaseDriverOntology(classIri);
-				break;
 			case '3':
-				classIri = classIri.concat("CHEBI_").concat(idString);
-				classLabel = getOriginalValueFromDiseaseDriverOntology(classIri);
-				break;
 			case '4':
-				classIri = classIri.concat("ExO_").concat(idString);
-				classLabel = getOriginalValueFromDiseaseDriverOntology(classIri);
-				break;
 			case '5':
-				classIri = classIri.concat("NCIT_C").concat(idString);
-				classLabel = getOriginalValueFromDiseaseDriverOntology(classIri);
-				break;
+				return diseaseDriverIndex;
 			case '6':
-				classIri = classIri.concat("SYMP_").concat(idString);
-				classLabel = getOriginalValueFromSymptomOntology(classIri);
-				break;
+				return symptomIndex;
 			default:
-				classIri = classIri.concat("TRANS_").concat(idString);
-				classLabel = getOriginalValueFromDiseaseTransmissionOntology(classIri);
+				return transmissionIndex;
 		}
-		
-		return classLabel;
 	}
 	
-	private String getOriginalValueFromDiseaseOntology(String IriString)
-	{	
-		OWLOntologyManager om = diseaseOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-		
-		IRI classIRI = IRI.create(IriString);
-		
-		Iterator<OWLAnnotationAssertionAxiom> diseaseSubClassAnnotationsIterator =
-				diseaseOntology.annotationAssertionAxioms(classIRI).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
-		
-		OWLAnnotationAssertionAxiom diseaseLabel = diseaseSubClassAnnotationsIterator.next();
-		
-		String diseaseLabelString = diseaseLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
-		
-		
-		return diseaseLabelString;
+	/**
+	 * returns the ids of many packages at once. Each package holds the labels of
+	 * its Disease, Disease Driver, Symptom and Transmission, in this order.
+	 * 
+	 * @param originalValues the labels of each package.
+	 * @param parallel whether large batches are split between the threads
+	 * of the common fork/join pool.
+	 * 
+	 * @return the ids of each package, in the same order as the labels.
+	 */
+	public int[][] getReducedValues(String[][] originalValues, boolean parallel)
+	{
+		int[][] reducedValues = new int[originalValues.length][indexes.length];
+		translate(new BatchReduction(originalValues, reducedValues, 0, originalValues.length), parallel);
+		return reducedValues;
 	}
 	
-	private String getOriginalValueFromDiseaseDriverOntology(String IriString)
+	/**
+	 * returns the labels of many packages at once. Each package holds the ids of
+	 * its Disease, Disease Driver, Symptom and Transmission, in this order.
+	 * 
+	 * @param reducedValues the ids of each package.
+	 * @param parallel whether large batches are split between the threads
+	 * of the common fork/join pool.
+	 * 
+	 * @return the labels of each package, in the same order as the ids.
+	 */
+	public String[][] getOriginalValues(int[][] reducedValues, boolean parallel)
 	{
-		OWLOntologyManager om = diseaseDriverOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-		
-		IRI classIRI = IRI.create(IriString);
-		
-		Iterator<OWLAnnotationAssertionAxiom> diseaseDriverSubClassAnnotationsIterator =
-				diseaseDriverOntology.annotationAssertionAxioms(classIRI).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
-		
-		OWLAnnotationAssertionAxiom diseaseDriverLabel = diseaseDriverSubClassAnnotationsIterator.next();
-		
-		String diseaseDriverLabelString = diseaseDriverLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
-		
-		
-		return diseaseDriverLabelString;
+		String[][] originalValues = new String[reducedValues.length][indexes.length];
+		translate(new BatchExpansion(reducedValues, originalValues, 0, reducedValues.length), parallel);
+		return originalValues;
 	}
 	
-	private String getOriginalValueFromSymptomOntology(String IriString)
+	/**
+	 * Run a batch translation, on the calling thread or on the common fork/join pool.
+	 * 
+	 * @param batch the translation of the whole batch.
+	 * @param parallel whether a large batch is split between the threads of the pool.
+	 */
+	private void translate(BatchTranslation batch, boolean parallel)
 	{
-		OWLOntologyManager om = symptomOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
-		
-		IRI classIRI = IRI.create(IriString);
+		if(parallel && batch.to - batch.from > BATCH_THRESHOLD)
+		{
+			ForkJoinPool.commonPool().invoke(batch);
+		}
+		else
+		{
+			batch.translate();
+		}
+	}
+	
+	/**
+	 * returns the ids of all the classes of one of the sub-ontologies, sorted,
+	 * including the superclasses that getAncestor can reach.
+	 * 
+	 * @param ontology 0 for Disease, 1 for Disease Driver, 2 for Symptom and 3 for
+	 * Transmission, the order of getRandomSetOfReducedValues.
+	 * 
+	 * @return the sorted ids.
+	 */
+	public int[] getReducedValues(int ontology)
+	{
+		switch (ontology)
+		{
+			case DISEASE:
+				return diseaseIndex.getReducedValues();
+			case DISEASE_DRIVER:
+				return diseaseDriverIndex.getReducedValues();
+			case SYMPTOM:
+				return symptomIndex.getReducedValues();
+			case TRANSMISSION:
+				return transmissionIndex.getReducedValues();
+			default:
+				throw new IllegalArgumentException("Unknown sub-ontology " + ontology);
+		}
+	}
+	
+	/**
+	 * Turn the IRI of a class into its reduced id by replacing the
+	 * namespace and the class prefix with the prefix digit.
+	 * 
+	 * @param classIri the IRI of the class.
+	 * @param prefixes the class prefixes of the ontology and their digits.
+	 * @return the reduced id, or null if the IRI doesn't match any of the prefixes.
+	 */
+	static Integer getReducedValueFromIri(String classIri, String[][] prefixes)
+	{
+		if(!classIri.startsWith(NAMESPACE))
+		{
+			return null;
+		}
+		String classId = classIri.substring(NAMESPACE.length());
+		for(String[] prefix : prefixes)
+		{
+			if(classId.startsWith(prefix[0]))
+			{
+				try {
+					return Integer.valueOf(prefix[1].concat(classId.substring(prefix[0].length())));
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * The translation of a range of packages of a batch, split in halves
+	 * until the ranges are small enough.
+	 */
+	private abstract class BatchTranslation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
 		
-		Iterator<OWLAnnotationAssertionAxiom> symptomSubClassAnnotationsIterator =
-				symptomOntology.annotationAssertionAxioms(classIRI).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
+		/** The range of packages, from inclusive and to exclusive. */
+		protected final int from, to;
 		
-		OWLAnnotationAssertionAxiom symptomLabel = symptomSubClassAnnotationsIterator.next();
+		BatchTranslation(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
 		
-		String symptomLabelString = symptomLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
+		@Override
+		protected void compute()
+		{
+			if(to - from <= BATCH_THRESHOLD)
+			{
+				translate();
+			}
+			else
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(split(from, middle), split(middle, to));
+			}
+		}
 		
+		/**
+		 * Translate the range. The packages are gone through once per
+		 * sub-ontology, so each pass only looks up one index.
+		 */
+		abstract void translate();
 		
-		return symptomLabelString;
+		/**
+		 * @return the translation of part of the range.
+		 */
+		abstract BatchTranslation split(int from, int to);
 	}
 	
-	private String getOriginalValueFromDiseaseTransmissionOntology(String IriString)
-	{
-		OWLOntologyManager om = transmissionOntology.getOWLOntologyManager();
-		OWLDataFactory df = om.getOWLDataFactory();
+	/** Looks up the ids of a range of packages. */
+	private final class BatchReduction extends BatchTranslation {
+		private static final long serialVersionUID = 1L;
+		private final String[][] originalValues;
+		private final int[][] reducedValues;
 		
-		IRI classIRI = IRI.create(IriString);
+		BatchReduction(String[][] originalValues, int[][] reducedValues, int from, int to)
+		{
+			super(from, to);
+			this.originalValues = originalValues;
+			this.reducedValues = reducedValues;
+		}
 		
-		Iterator<OWLAnnotationAssertionAxiom> transmissionSubClassAnnotationsIterator =
-				transmissionOntology.annotationAssertionAxioms(classIRI).
-				filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
+		void translate()
+		{
+			for(int field = 0; field < indexes.length; field++)
+			{
+				OntologyIndex index = indexes[field];
+				for(int i = from; i < to; i++)
+				{
+					reducedValues[i][field] = index.getReducedValue(originalValues[i][field]);
+				}
+			}
+		}
 		
-		OWLAnnotationAssertionAxiom transmissionLabel = transmissionSubClassAnnotationsIterator.next();
+		BatchTranslation split(int from, int to)
+		{
+			return new BatchReduction(originalValues, reducedValues, from, to);
+		}
+	}
+	
+	/** Looks up the labels of a range of packages. */
+	private final class BatchExpansion extends BatchTranslation {
+		private static final long serialVersionUID = 1L;
+		private final int[][] reducedValues;
+		private final String[][] originalValues;
 		
-		String transmissionLabelString = transmissionLabel.getValue().components()
-				.filter(value-> !value.toString().contains("http")).iterator().next().toString();
+		BatchExpansion(int[][] reducedValues, String[][] originalValues, int from, int to)
+		{
+			super(from, to);
+			this.reducedValues = reducedValues;
+			this.originalValues = originalValues;
+		}
 		
+		void translate()
+		{
+			for(int field = 0; field < indexes.length; field++)
+			{
+				OntologyIndex index = indexes[field];
+				for(int i = from; i < to; i++)
+				{
+					originalValues[i][field] = index.getLabel(reducedValues[i][field]);
+				}
+			}
+		}
 		
-		return transmissionLabelString;
+		BatchTranslation split(int from, int to)
+		{
+			return new BatchExpansion(reducedValues, originalValues, from, to);
+		}
 	}
 	
+	/**
+	 * Get a random Int between 0 and an upper limit-1, from the random source
+	 * of the calling thread.
+	 * @param upperLimit The upper limit to the range of possible numbers.
+	 * @return The random int generated.
+	 */
 	private int getRandomInt(int upperLimit)
 	{
-		Random numberGenerator = new Random();
-		int randomNumber = (numberGenerator.nextInt(upperLimit));
-		return randomNumber;
+		return ThreadLocalRandom.current().nextInt(upperLimit);
 	}
 }
@@ -0,0 +1,146 @@
+package de.nec.nle.siafu.edgeFogCloud.ontology;
+
+import static de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController.*;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.OWLOntologyDocumentSource;
+import org.semanticweb.owlapi.io.StreamDocumentSource;
+import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+/**
+ * Builds the ontology indexes by loading the whole ontology, and its imports,
+ * with the OWL API.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class OWLAPIOntologyBackend implements OntologyBackend {
+
+	/**
+	 * @return "owlapi".
+	 */
+	public String getName()
+	{
+		return "owlapi";
+	}
+
+	/**
+	 * Parse the ontology and build the index of each sub-ontology. The OWL
+	 * objects are dropped once the indexes are built.
+	 *
+	 * @param owl the contents of the main OWL file.
+	 * @return the indexes of the sub-ontologies.
+	 */
+	public OntologyIndex[] buildIndexes(InputStream owl)
+	{
+		OWLOntology diseaseOntology,symptomOntology=null,transmissionOntology=null,diseaseDriverOntology=null;
+		OWLOntologyManager om = OWLManager.createOWLOntologyManager();
+
+		OWLOntologyDocumentSource diseaseOntologySource = new StreamDocumentSource(owl);
+		try {
+			System.out.println("Loading ontologies");
+
+			diseaseOntology = om.loadOntologyFromOntologyDocument(diseaseOntologySource);
+			Iterator<OWLOntology> ontologiesIterator = om.ontologies().iterator();
+
+			while(ontologiesIterator.hasNext())
+			{
+				OWLOntology currentOntology = ontologiesIterator.next();
+				if(currentOntology.getOntologyID().getOntologyIRI().toString()
+						.equals("Optional[" + DISEASE_DRIVER_ONTOLOGY + "]"))
+				{
+					diseaseDriverOntology = currentOntology;
+				}
+				else if(currentOntology.getOntologyID().getOntologyIRI().toString()
+						.equals("Optional[" + SYMPTOM_ONTOLOGY + "]"))
+				{
+					symptomOntology = currentOntology;
+				}
+				else if(currentOntology.getOntologyID().getOntologyIRI().toString()
+						.equals("Optional[" + TRANSMISSION_ONTOLOGY + "]"))
+				{
+					transmissionOntology = currentOntology;
+				}
+			}
+		} catch (OWLOntologyCreationException e) {
+			throw new RuntimeException("Couldn't create the provided ontology ", e);
+		}
+
+		OntologyIndex[] indexes = new OntologyIndex[4];
+		indexes[DISEASE] = buildIndex(diseaseOntology, DISEASE_PREFIXES);
+		indexes[DISEASE_DRIVER] = buildIndex(diseaseDriverOntology, DISEASE_DRIVER_PREFIXES);
+		indexes[SYMPTOM] = buildIndex(symptomOntology, SYMPTOM_PREFIXES);
+		indexes[TRANSMISSION] = buildIndex(transmissionOntology, TRANSMISSION_PREFIXES);
+		return indexes;
+	}
+
+	/**
+	 * Build the index between the labels and the reduced ids of the classes
+	 * of an ontology. The classes without subclasses are also kept apart,
+	 * with their first label, to be sampled by getRandomSetOfValues, and the
+	 * first named superclass of each class is kept to roll ids up.
+	 *
+	 * @param ontology the ontology to index.
+	 * @param prefixes the class prefixes of the ontology and the digit
+	 *            that replaces each one in the reduced id.
+	 * @return the index of the ontology.
+	 */
+	private OntologyIndex buildIndex(OWLOntology ontology, String[][] prefixes)
+	{
+		OWLDataFactory df = ontology.getOWLOntologyManager().getOWLDataFactory();
+		OntologyIndex index = new OntologyIndex((int) ontology.classesInSignature().count());
+
+		Iterator<OWLClass> classesIterator = ontology.classesInSignature().iterator();
+		while(classesIterator.hasNext())
+		{
+			OWLClass currentClass = classesIterator.next();
+			Integer reducedValue = getReducedValueFromIri(currentClass.getIRI().toString(), prefixes);
+			if(reducedValue == null)
+			{
+				continue;
+			}
+			Iterator<OWLAnnotationAssertionAxiom> labelsIterator =
+					ontology.annotationAssertionAxioms(currentClass.getIRI())
+					.filter(annotation -> annotation.getProperty().equals(df.getRDFSLabel())).iterator();
+			boolean isLeaf = ontology.subClassAxiomsForSuperClass(currentClass).count()==0;
+			while(labelsIterator.hasNext())
+			{
+				String label = labelsIterator.next().getValue().components()
+						.filter(component -> !component.toString().contains("http"))
+						.iterator().next().toString();
+				if(isLeaf)
+				{
+					index.addLeaf(label, reducedValue);
+					isLeaf = false;
+				}
+				else
+				{
+					index.add(label, reducedValue);
+				}
+			}
+			Iterator<OWLClassExpression> superClassesIterator = ontology.subClassAxiomsForSubClass(currentClass)
+					.map(axiom -> axiom.getSuperClass()).iterator();
+			while(superClassesIterator.hasNext())
+			{
+				OWLClassExpression superClass = superClassesIterator.next();
+				Integer parentValue = superClass.isAnonymous() ? null
+						: getReducedValueFromIri(superClass.asOWLClass().getIRI().toString(), prefixes);
+				if(parentValue != null)
+				{
+					index.setParent(reducedValue, parentValue);
+					break;
+				}
+			}
+		}
+		index.compact();
+		return index;
+	}
+}
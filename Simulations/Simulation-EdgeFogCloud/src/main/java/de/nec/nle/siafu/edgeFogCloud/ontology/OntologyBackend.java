@@ -0,0 +1,32 @@
+package de.nec.nle.siafu.edgeFogCloud.ontology;
+
+import java.io.InputStream;
+
+/**
+ * A way of reading the OWL file into the indexes the
+ * {@link DiseaseOntologyController} serves the reduce, expand and random
+ * sampling calls from. Every backend must produce the same indexes for the
+ * same OWL file, so they can be swapped to compare their load time and memory.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+interface OntologyBackend {
+
+	/**
+	 * @return the name of the backend, used to select it and to tell apart
+	 *         the snapshots it writes.
+	 */
+	String getName();
+
+	/**
+	 * Read the ontology and build the index of each sub-ontology.
+	 *
+	 * @param owl the contents of the main OWL file.
+	 * @return the indexes, at the positions
+	 *         {@link DiseaseOntologyController#DISEASE},
+	 *         {@link DiseaseOntologyController#DISEASE_DRIVER},
+	 *         {@link DiseaseOntologyController#SYMPTOM} and
+	 *         {@link DiseaseOntologyController#TRANSMISSION}.
+	 */
+	OntologyIndex[] buildIndexes(InputStream owl);
+}
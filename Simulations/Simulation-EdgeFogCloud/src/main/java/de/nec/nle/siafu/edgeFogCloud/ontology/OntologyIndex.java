@@ -0,0 +1,339 @@
+package de.nec.nle.siafu.edgeFogCloud.ontology;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lookup tables between the rdfs:label of the classes of one ontology and
+ * their reduced ids. The tables are filled once, when the ontology is loaded,
+ * so that reducing and expanding a value does not need to go through the
+ * classes of the ontology.
+ * <p>
+ * Once built, by a backend or from a snapshot, an index is never changed, so
+ * it can be read from any thread without locking.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class OntologyIndex {
+
+	/** The reduced id of each label. */
+	private final HashMap<String, Integer> reducedValues;
+
+	/** The label of each reduced id. */
+	private final HashMap<Integer, String> labels;
+
+	/** The reduced id of the superclass of each class that has one. */
+	private final HashMap<Integer, Integer> parents;
+
+	/** The reduced ids of the classes without subclasses. */
+	private int[] leafValues;
+
+	/** The labels of the classes without subclasses. */
+	private String[] leafLabels;
+
+	/** The amount of classes without subclasses. */
+	private int leafCount;
+
+	/**
+	 * Create an empty index.
+	 *
+	 * @param expectedSize the amount of classes the index is expected to hold,
+	 *            used to size the tables once.
+	 */
+	OntologyIndex(int expectedSize)
+	{
+		int capacity = (int) (expectedSize / 0.75f) + 1;
+		reducedValues = new HashMap<String, Integer>(capacity);
+		labels = new HashMap<Integer, String>(capacity);
+		parents = new HashMap<Integer, Integer>(capacity);
+		leafValues = new int[Math.max(expectedSize, 1)];
+		leafLabels = new String[Math.max(expectedSize, 1)];
+	}
+
+	/**
+	 * Add a class to the index. When two classes share a label, the first one
+	 * added keeps it.
+	 *
+	 * @param label the rdfs:label of the class.
+	 * @param reducedValue the reduced id of the class.
+	 */
+	void add(String label, int reducedValue)
+	{
+		Integer id = Integer.valueOf(reducedValue);
+		if(!reducedValues.containsKey(label))
+		{
+			reducedValues.put(label, id);
+		}
+		if(!labels.containsKey(id))
+		{
+			labels.put(id, label);
+		}
+	}
+
+	/**
+	 * Add a class without subclasses to the index, so it can be sampled by
+	 * its position. The class is also added as in {@link #add(String, int)}.
+	 *
+	 * @param label the rdfs:label of the class.
+	 * @param reducedValue the reduced id of the class.
+	 */
+	void addLeaf(String label, int reducedValue)
+	{
+		add(label, reducedValue);
+		if(leafCount == leafValues.length)
+		{
+			leafValues = Arrays.copyOf(leafValues, leafCount * 2);
+			leafLabels = Arrays.copyOf(leafLabels, leafCount * 2);
+		}
+		leafValues[leafCount] = reducedValue;
+		leafLabels[leafCount] = label;
+		leafCount++;
+	}
+
+	/**
+	 * Record the superclass of a class. A class with more than one superclass
+	 * keeps the first one recorded.
+	 *
+	 * @param reducedValue the reduced id of the class.
+	 * @param parentValue the reduced id of its superclass.
+	 */
+	void setParent(int reducedValue, int parentValue)
+	{
+		if(reducedValue != parentValue)
+		{
+			Integer id = Integer.valueOf(reducedValue);
+			if(!parents.containsKey(id))
+			{
+				parents.put(id, Integer.valueOf(parentValue));
+			}
+		}
+	}
+
+	/**
+	 * Trim the tables of the classes without subclasses to their final size.
+	 * Called once all the classes have been added.
+	 */
+	void compact()
+	{
+		leafValues = Arrays.copyOf(leafValues, leafCount);
+		leafLabels = Arrays.copyOf(leafLabels, leafCount);
+	}
+
+	/**
+	 * @return the amount of classes without subclasses in the index.
+	 */
+	int getLeafCount()
+	{
+		return leafCount;
+	}
+
+	/**
+	 * returns the label of a class without subclasses.
+	 *
+	 * @param position the position of the class, between 0 and
+	 *            {@link #getLeafCount()}-1.
+	 *
+	 * @return The label of the class.
+	 */
+	String getLeafLabel(int position)
+	{
+		return leafLabels[position];
+	}
+
+	/**
+	 * returns the reduced id of a class without subclasses.
+	 *
+	 * @param position the position of the class, between 0 and
+	 *            {@link #getLeafCount()}-1.
+	 *
+	 * @return The value of the id as an Int.
+	 */
+	int getLeafValue(int position)
+	{
+		return leafValues[position];
+	}
+
+	/**
+	 * returns the reduced id of the class with the label provided.
+	 *
+	 * @param label the label of the class.
+	 *
+	 * @return The value of the id as an Int.
+	 */
+	int getReducedValue(String label)
+	{
+		Integer reducedValue = reducedValues.get(label);
+		if(reducedValue == null)
+		{
+			throw new NoSuchElementException("No class labelled " + label);
+		}
+		return reducedValue.intValue();
+	}
+
+	/**
+	 * returns the reduced id of the superclass of a class.
+	 *
+	 * @param reducedValue the reduced id of the class.
+	 *
+	 * @return The id of the superclass, or the id provided if the class is a
+	 *         root of the ontology.
+	 */
+	int getParent(int reducedValue)
+	{
+		Integer parent = parents.get(Integer.valueOf(reducedValue));
+		return parent == null ? reducedValue : parent.intValue();
+	}
+
+	/**
+	 * returns whether the index has a class with the reduced id provided.
+	 *
+	 * @param reducedValue the reduced id of the class.
+	 *
+	 * @return true if the class is in the index.
+	 */
+	boolean contains(int reducedValue)
+	{
+		return labels.containsKey(Integer.valueOf(reducedValue));
+	}
+
+	/**
+	 * returns the label of the class with the reduced id provided.
+	 *
+	 * @param reducedValue the reduced id of the class.
+	 *
+	 * @return The label of the class.
+	 */
+	String getLabel(int reducedValue)
+	{
+		String label = labels.get(Integer.valueOf(reducedValue));
+		if(label == null)
+		{
+			throw new NoSuchElementException("No class with id " + reducedValue);
+		}
+		return label;
+	}
+
+	/**
+	 * @return the reduced ids of all the classes in the index, sorted. The
+	 *         superclasses are included even when they have no label, so the
+	 *         ids a value is rolled up to are among them.
+	 */
+	int[] getReducedValues()
+	{
+		int[] values = new int[labels.size() + parents.size()];
+		int i = 0;
+		for(Integer id : labels.keySet())
+		{
+			values[i++] = id.intValue();
+		}
+		for(Integer parent : parents.values())
+		{
+			values[i++] = parent.intValue();
+		}
+		Arrays.sort(values);
+		int distinct = 0;
+		for(int j = 0; j < values.length; j++)
+		{
+			if(distinct == 0 || values[j] != values[distinct - 1])
+			{
+				values[distinct++] = values[j];
+			}
+		}
+		return Arrays.copyOf(values, distinct);
+	}
+
+	/**
+	 * Write the index in the binary form read by {@link #readFrom(ByteBuffer)}.
+	 * Each label is written once, and the tables refer to it by position.
+	 *
+	 * @param out the stream to write to.
+	 * @throws IOException if the index can't be written.
+	 */
+	void writeTo(DataOutputStream out) throws IOException
+	{
+		HashMap<String, Integer> labelPositions = new HashMap<String, Integer>(
+				(int) (reducedValues.size() / 0.75f) + 1);
+		out.writeInt(reducedValues.size());
+		for(Map.Entry<String, Integer> entry : reducedValues.entrySet())
+		{
+			byte[] label = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			out.writeInt(label.length);
+			out.write(label);
+			out.writeInt(entry.getValue().intValue());
+			labelPositions.put(entry.getKey(), Integer.valueOf(labelPositions.size()));
+		}
+		out.writeInt(labels.size());
+		for(Map.Entry<Integer, String> entry : labels.entrySet())
+		{
+			out.writeInt(entry.getKey().intValue());
+			out.writeInt(labelPositions.get(entry.getValue()).intValue());
+		}
+		out.writeInt(leafCount);
+		for(int i = 0; i < leafCount; i++)
+		{
+			out.writeInt(leafValues[i]);
+			out.writeInt(labelPositions.get(leafLabels[i]).intValue());
+		}
+		out.writeInt(parents.size());
+		for(Map.Entry<Integer, Integer> entry : parents.entrySet())
+		{
+			out.writeInt(entry.getKey().intValue());
+			out.writeInt(entry.getValue().intValue());
+		}
+	}
+
+	/**
+	 * Read an index written by {@link #writeTo(DataOutputStream)}.
+	 *
+	 * @param in the buffer to read from, positioned at the start of the index.
+	 * @return the index.
+	 */
+	static OntologyIndex readFrom(ByteBuffer in)
+	{
+		int labelCount = in.getInt();
+		OntologyIndex index = new OntologyIndex(labelCount);
+		String[] labelTable = new String[labelCount];
+		for(int i = 0; i < labelCount; i++)
+		{
+			byte[] label = new byte[in.getInt()];
+			in.get(label);
+			labelTable[i] = new String(label, StandardCharsets.UTF_8);
+			index.reducedValues.put(labelTable[i], Integer.valueOf(in.getInt()));
+		}
+		int idCount = in.getInt();
+		for(int i = 0; i < idCount; i++)
+		{
+			int id = in.getInt();
+			index.labels.put(Integer.valueOf(id), labelTable[in.getInt()]);
+		}
+		index.leafCount = in.getInt();
+		index.leafValues = new int[index.leafCount];
+		index.leafLabels = new String[index.leafCount];
+		for(int i = 0; i < index.leafCount; i++)
+		{
+			index.leafValues[i] = in.getInt();
+			index.leafLabels[i] = labelTable[in.getInt()];
+		}
+		int parentCount = in.getInt();
+		for(int i = 0; i < parentCount; i++)
+		{
+			int id = in.getInt();
+			index.parents.put(Integer.valueOf(id), Integer.valueOf(in.getInt()));
+		}
+		return index;
+	}
+
+	/**
+	 * @return the amount of classes in the index.
+	 */
+	int size()
+	{
+		return labels.size();
+	}
+}
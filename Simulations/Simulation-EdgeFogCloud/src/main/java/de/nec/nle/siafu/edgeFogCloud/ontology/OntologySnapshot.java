@@ -0,0 +1,184 @@
+package de.nec.nle.siafu.edgeFogCloud.ontology;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Binary snapshot of the ontology indexes. The snapshot holds only what the
+ * simulation uses (labels, reduced ids, superclasses and the classes without
+ * subclasses)
+ * and the checksum of the OWL file and imports it was built from, so that
+ * later runs can skip parsing the ontology as long as they don't change.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+final class OntologySnapshot {
+
+	/** Marks the start of a snapshot file. */
+	private static final int MAGIC = 0x444F534E;
+
+	/**
+	 * Version of the snapshot format. Version 2 added the superclasses, and
+	 * version 3 the imports to the checksum.
+	 */
+	private static final int VERSION = 3;
+
+	/** Algorithm used for the checksum of the OWL file. */
+	private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+	/**
+	 * Forbid the instantiation of this utility class.
+	 */
+	private OntologySnapshot() {
+		// Do nothing.
+	}
+
+	/**
+	 * Calculate the checksum of an OWL file and its imports.
+	 *
+	 * @param owl the contents of the OWL file. The stream is closed.
+	 * @param imports the IRI of each import, in a fixed order, with the
+	 *            contents of its local copy, or null if it's only known by its
+	 *            IRI. The streams are closed.
+	 * @return the checksum.
+	 * @throws IOException if a file can't be read.
+	 */
+	static byte[] checksum(InputStream owl, Map<String, InputStream> imports) throws IOException
+	{
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("No " + CHECKSUM_ALGORITHM + " available", e);
+		}
+		byte[] buffer = new byte[64 * 1024];
+		update(digest, owl, buffer);
+		for(Map.Entry<String, InputStream> imported : imports.entrySet())
+		{
+			digest.update(imported.getKey().getBytes(StandardCharsets.UTF_8));
+			if(imported.getValue() != null)
+			{
+				update(digest, imported.getValue(), buffer);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Add the contents of a file to a checksum.
+	 *
+	 * @param digest the checksum being calculated.
+	 * @param in the contents of the file. The stream is closed.
+	 * @param buffer the buffer the file is read through.
+	 * @throws IOException if the file can't be read.
+	 */
+	private static void update(MessageDigest digest, InputStream in, byte[] buffer) throws IOException
+	{
+		try {
+			int read;
+			while((read = in.read(buffer)) != -1)
+			{
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Read the indexes from a snapshot file, which is memory-mapped while
+	 * it's read.
+	 *
+	 * @param snapshotFile the snapshot file.
+	 * @param checksum the checksum of the OWL file and imports the snapshot
+	 *            must have been built from.
+	 * @return the indexes, in the order they were written, or null if the file
+	 *         doesn't exist, is corrupt or was built from other OWL files.
+	 */
+	static OntologyIndex[] read(File snapshotFile, byte[] checksum)
+	{
+		if(!snapshotFile.isFile())
+		{
+			return null;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "r");
+				FileChannel channel = file.getChannel()) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(in.getInt() != MAGIC || in.getInt() != VERSION)
+			{
+				return null;
+			}
+			byte[] snapshotChecksum = new byte[in.getInt()];
+			in.get(snapshotChecksum);
+			if(!Arrays.equals(snapshotChecksum, checksum))
+			{
+				return null;
+			}
+			OntologyIndex[] indexes = new OntologyIndex[in.getInt()];
+			for(int i = 0; i < indexes.length; i++)
+			{
+				indexes[i] = OntologyIndex.readFrom(in);
+			}
+			return indexes;
+		} catch (IOException | BufferUnderflowException | IndexOutOfBoundsException
+				| NegativeArraySizeException e) {
+			System.err.println("Ignoring unreadable ontology snapshot " + snapshotFile + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Write the indexes to a snapshot file. The file is first written under a
+	 * temporary name, so that an interrupted write never leaves a truncated
+	 * snapshot behind.
+	 *
+	 * @param snapshotFile the snapshot file.
+	 * @param checksum the checksum of the OWL file and imports the indexes were
+	 *            built from.
+	 * @param indexes the indexes to write.
+	 * @throws IOException if the snapshot can't be written.
+	 */
+	static void write(File snapshotFile, byte[] checksum, OntologyIndex[] indexes)
+			throws IOException
+	{
+		File dir = snapshotFile.getAbsoluteFile().getParentFile();
+		if(!dir.isDirectory() && !dir.mkdirs())
+		{
+			throw new IOException("Can't create " + dir);
+		}
+		File tmpFile = new File(dir, snapshotFile.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(checksum.length);
+			out.write(checksum);
+			out.writeInt(indexes.length);
+			for(OntologyIndex index : indexes)
+			{
+				index.writeTo(out);
+			}
+		}
+		if(snapshotFile.exists() && !snapshotFile.delete())
+		{
+			throw new IOException("Can't replace " + snapshotFile);
+		}
+		if(!tmpFile.renameTo(snapshotFile))
+		{
+			throw new IOException("Can't rename " + tmpFile + " to " + snapshotFile);
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package de.nec.nle.siafu.edgeFogCloud.ontology;
+
+import static de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Builds the ontology indexes by streaming the RDF/XML of the OWL files with
+ * a pull parser. Only the rdfs:label and rdfs:subClassOf statements of the
+ * classes are kept, and only the imports the simulation uses (disdriv_import,
+ * symp_import and trans_import) are read, so the ontology is never held in
+ * memory as a whole.
+ * <p>
+ * Imports are looked up first in the ontology/imports resources folder, by
+ * file name, and then fetched from their IRI.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class StreamingOntologyBackend implements OntologyBackend {
+
+	/** The RDF namespace. */
+	private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+	/** The RDF Schema namespace. */
+	private static final String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
+
+	/** The OWL namespace. */
+	private static final String OWL = "http://www.w3.org/2002/07/owl#";
+
+	/** How many redirections are followed when fetching an import. */
+	private static final int MAX_REDIRECTS = 5;
+
+	/**
+	 * @return "streaming".
+	 */
+	public String getName()
+	{
+		return "streaming";
+	}
+
+	/**
+	 * Stream the main OWL file and the imports of the sub-ontologies, and
+	 * build the index of each one.
+	 *
+	 * @param owl the contents of the main OWL file.
+	 * @return the indexes of the sub-ontologies.
+	 */
+	public OntologyIndex[] buildIndexes(InputStream owl)
+	{
+		System.out.println("Streaming ontologies");
+		OntologyIndex[] indexes = new OntologyIndex[4];
+		OntologyDocument diseaseDocument = parse(owl);
+		indexes[DISEASE] = diseaseDocument.buildIndex(DISEASE_PREFIXES);
+
+		for(String imported : diseaseDocument.imports)
+		{
+			if(imported.equals(DISEASE_DRIVER_ONTOLOGY))
+			{
+				indexes[DISEASE_DRIVER] = parse(openImport(imported)).buildIndex(DISEASE_DRIVER_PREFIXES);
+			}
+			else if(imported.equals(SYMPTOM_ONTOLOGY))
+			{
+				indexes[SYMPTOM] = parse(openImport(imported)).buildIndex(SYMPTOM_PREFIXES);
+			}
+			else if(imported.equals(TRANSMISSION_ONTOLOGY))
+			{
+				indexes[TRANSMISSION] = parse(openImport(imported)).buildIndex(TRANSMISSION_PREFIXES);
+			}
+		}
+		for(OntologyIndex index : indexes)
+		{
+			if(index == null)
+			{
+				throw new RuntimeException("The provided ontology doesn't import "
+						+ DISEASE_DRIVER_ONTOLOGY + ", " + SYMPTOM_ONTOLOGY + " and " + TRANSMISSION_ONTOLOGY);
+			}
+		}
+		return indexes;
+	}
+
+	/**
+	 * Open an imported OWL file.
+	 *
+	 * @param iri the IRI of the import.
+	 * @return the contents of the file.
+	 */
+	private InputStream openImport(String iri)
+	{
+		InputStream local = openLocalImport(iri);
+		if(local != null)
+		{
+			return local;
+		}
+		try {
+			URL url = new URL(iri);
+			for(int i = 0; i < MAX_REDIRECTS; i++)
+			{
+				URLConnection connection = url.openConnection();
+				if(connection instanceof HttpURLConnection)
+				{
+					HttpURLConnection http = (HttpURLConnection) connection;
+					int status = http.getResponseCode();
+					if(status >= 300 && status < 400 && http.getHeaderField("Location") != null)
+					{
+						url = new URL(url, http.getHeaderField("Location"));
+						http.disconnect();
+						continue;
+					}
+				}
+				return connection.getInputStream();
+			}
+			throw new IOException("Too many redirections");
+		} catch (IOException e) {
+			throw new RuntimeException("Couldn't fetch the import " + iri, e);
+		}
+	}
+
+	/**
+	 * Stream an RDF/XML document, keeping the labels of its classes, the
+	 * classes that have subclasses and its imports.
+	 *
+	 * @param owl the contents of the document. The stream is closed.
+	 * @return what was kept of the document.
+	 */
+	private OntologyDocument parse(InputStream owl)
+	{
+		OntologyDocument document = new OntologyDocument();
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		try {
+			XMLStreamReader reader = factory.createXMLStreamReader(new BufferedInputStream(owl));
+			try {
+				int depth = 0;
+				String subject = null;
+				boolean subjectIsOntology = false;
+				boolean inSubClassOf = false;
+				while(reader.hasNext())
+				{
+					int event = reader.next();
+					if(event == XMLStreamConstants.START_ELEMENT)
+					{
+						depth++;
+						if(depth == 2)
+						{
+							subjectIsOntology = is(reader, OWL, "Ontology");
+							subject = (subjectIsOntology || is(reader, OWL, "Class") || is(reader, RDF, "Description"))
+									? reader.getAttributeValue(RDF, "about") : null;
+							if(subjectIsOntology)
+							{
+								document.ontologyIri = subject;
+							}
+						}
+						else if(depth == 3 && subject != null)
+						{
+							if(subjectIsOntology && is(reader, OWL, "imports"))
+							{
+								document.imports.add(reader.getAttributeValue(RDF, "resource"));
+							}
+							else if(is(reader, RDFS, "label"))
+							{
+								document.labelledClasses.add(subject);
+								document.labels.add(reader.getElementText());
+								depth--;
+							}
+							else if(is(reader, RDFS, "subClassOf"))
+							{
+								String superClass = reader.getAttributeValue(RDF, "resource");
+								if(superClass != null)
+								{
+									document.addSubClassOf(subject, superClass);
+								}
+								inSubClassOf = true;
+							}
+						}
+						else if(depth == 4 && inSubClassOf && is(reader, OWL, "Class"))
+						{
+							String superClass = reader.getAttributeValue(RDF, "about");
+							if(superClass != null)
+							{
+								document.addSubClassOf(subject, superClass);
+							}
+						}
+					}
+					else if(event == XMLStreamConstants.END_ELEMENT)
+					{
+						if(depth == 3)
+						{
+							inSubClassOf = false;
+						}
+						depth--;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new RuntimeException("Couldn't stream the provided ontology ", e);
+		} finally {
+			try {
+				owl.close();
+			} catch (IOException e) {
+				// Nothing left to read.
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * Check the name of the current element.
+	 *
+	 * @param reader the reader, at a start element.
+	 * @param namespace the expected namespace.
+	 * @param localName the expected local name.
+	 * @return true if the element has that name.
+	 */
+	private static boolean is(XMLStreamReader reader, String namespace, String localName)
+	{
+		return localName.equals(reader.getLocalName()) && namespace.equals(reader.getNamespaceURI());
+	}
+
+	/**
+	 * What is kept of an OWL document while it's streamed.
+	 */
+	private static final class OntologyDocument {
+		/** The IRI of the ontology. */
+		private String ontologyIri;
+		/** The IRIs the ontology imports. */
+		private final ArrayList<String> imports = new ArrayList<String>();
+		/** The class of each label, in document order. */
+		private final ArrayList<String> labelledClasses = new ArrayList<String>();
+		/** The labels, in document order. */
+		private final ArrayList<String> labels = new ArrayList<String>();
+		/** The classes some other class is a subclass of. */
+		private final HashSet<String> superClasses = new HashSet<String>();
+		/** The subclass of each rdfs:subClassOf statement, in document order. */
+		private final ArrayList<String> subClassStatements = new ArrayList<String>();
+		/** The superclass of each rdfs:subClassOf statement, in document order. */
+		private final ArrayList<String> superClassStatements = new ArrayList<String>();
+
+		/**
+		 * Keep an rdfs:subClassOf statement.
+		 *
+		 * @param subClass the IRI of the subclass.
+		 * @param superClass the IRI of the superclass.
+		 */
+		private void addSubClassOf(String subClass, String superClass)
+		{
+			superClasses.add(superClass);
+			subClassStatements.add(subClass);
+			superClassStatements.add(superClass);
+		}
+
+		/**
+		 * Build the index of the document, as the OWL API backend does.
+		 *
+		 * @param prefixes the class prefixes of the ontology and their digits.
+		 * @return the index of the ontology.
+		 */
+		private OntologyIndex buildIndex(String[][] prefixes)
+		{
+			System.out.println("Indexing " + ontologyIri);
+			OntologyIndex index = new OntologyIndex(labels.size());
+			HashSet<String> sampledClasses = new HashSet<String>();
+			for(int i = 0; i < labels.size(); i++)
+			{
+				String classIri = labelledClasses.get(i);
+				Integer reducedValue = getReducedValueFromIri(classIri, prefixes);
+				if(reducedValue == null)
+				{
+					continue;
+				}
+				if(!superClasses.contains(classIri) && sampledClasses.add(classIri))
+				{
+					index.addLeaf(labels.get(i), reducedValue);
+				}
+				else
+				{
+					index.add(labels.get(i), reducedValue);
+				}
+			}
+			for(int i = 0; i < subClassStatements.size(); i++)
+			{
+				Integer reducedValue = getReducedValueFromIri(subClassStatements.get(i), prefixes);
+				Integer parentValue = getReducedValueFromIri(superClassStatements.get(i), prefixes);
+				if(reducedValue != null && parentValue != null)
+				{
+					index.setParent(reducedValue, parentValue);
+				}
+			}
+			index.compact();
+			return index;
+		}
+	}
+}
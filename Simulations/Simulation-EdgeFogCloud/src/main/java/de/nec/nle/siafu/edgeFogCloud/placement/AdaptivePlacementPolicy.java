@@ -0,0 +1,64 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import de.nec.nle.siafu.edgeFogCloud.PackagePayload;
+import de.nec.nle.siafu.edgeFogCloud.ServiceQueue;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+
+/**
+ * Reduces each package at the tier with the lowest cost right now: the
+ * estimated seconds to end its trip, with the current queues, plus a price
+ * per byte sent, to trade latency for bandwidth.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class AdaptivePlacementPolicy implements PlacementPolicy {
+
+	/** The costs of reducing at each tier. */
+	private final PlacementCosts costs;
+
+	/** The seconds each byte sent is worth. */
+	private final double byteCost;
+
+	/**
+	 * @param costs the costs of reducing at each tier.
+	 * @param byteCost the seconds each byte sent is worth.
+	 */
+	AdaptivePlacementPolicy(PlacementCosts costs, double byteCost) {
+		this.costs = costs;
+		this.byteCost = byteCost;
+	}
+
+	/**
+	 * @return "adaptive".
+	 */
+	public String getName() {
+		return "adaptive";
+	}
+
+	/**
+	 * @param originHop the first hop of the package.
+	 * @param payload the data of the package.
+	 * @param fogQueue the queue of the fog server.
+	 * @param cloudQueue the queue of the cloud server.
+	 * @return the tier with the lowest cost, among the three tiers for the
+	 *         packages of the edge servers and the fog and cloud otherwise.
+	 */
+	public Tier place(Hop originHop, PackagePayload payload, ServiceQueue fogQueue, ServiceQueue cloudQueue) {
+		int original = payload.getSize();
+		int reduced = costs.getReducedSize(payload);
+		Tier best = null;
+		double bestCost = Double.POSITIVE_INFINITY;
+		for (Tier tier : Tier.values()) {
+			if (tier == Tier.EDGE && originHop != Hop.EDGE_TO_FOG) {
+				continue;
+			}
+			double cost = costs.estimateSeconds(tier, originHop, original, reduced, fogQueue, cloudQueue)
+					+ byteCost * costs.estimateBytes(tier, original, reduced);
+			if (cost < bestCost) {
+				best = tier;
+				bestCost = cost;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,33 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import de.nec.nle.siafu.edgeFogCloud.PackagePayload;
+import de.nec.nle.siafu.edgeFogCloud.ServiceQueue;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+
+/**
+ * Reduces the packages of the edge servers at the edge and the others at
+ * the fog, the placement the simulation has always used.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class OriginPlacementPolicy implements PlacementPolicy {
+
+	/**
+	 * @return "origin".
+	 */
+	public String getName() {
+		return "origin";
+	}
+
+	/**
+	 * @param originHop the first hop of the package.
+	 * @param payload the data of the package.
+	 * @param fogQueue the queue of the fog server.
+	 * @param cloudQueue the queue of the cloud server.
+	 * @return the edge for the packages of the edge servers, the fog
+	 *         otherwise.
+	 */
+	public Tier place(Hop originHop, PackagePayload payload, ServiceQueue fogQueue, ServiceQueue cloudQueue) {
+		return originHop == Hop.EDGE_TO_FOG ? Tier.EDGE : Tier.FOG;
+	}
+}
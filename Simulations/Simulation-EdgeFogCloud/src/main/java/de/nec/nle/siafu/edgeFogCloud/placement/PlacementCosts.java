@@ -0,0 +1,133 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.edgeFogCloud.FogAggregator;
+import de.nec.nle.siafu.edgeFogCloud.PackagePayload;
+import de.nec.nle.siafu.edgeFogCloud.ServiceQueue;
+import de.nec.nle.siafu.edgeFogCloud.codec.PayloadCodec;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+import de.nec.nle.siafu.edgeFogCloud.network.LinkModel;
+
+/**
+ * The costs of reducing a package at each tier: the compute time of the
+ * reduction, a base time plus a time per byte of the original form read
+ * from the placement section of config.xml, e.g.
+ * &lt;edge base="0.005" perbyte="0.0001"/&gt;, and the estimate of the
+ * whole trip of the package, with the mean transit time of each hop for the
+ * form the package travels in and the waits the queues it goes through have
+ * now.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class PlacementCosts {
+
+	/** The links between the tiers. */
+	private final LinkModel links;
+
+	/** The codec the packages are reduced with. */
+	private final PayloadCodec codec;
+
+	/** The base compute time of each tier, in seconds. */
+	private final double[] base = new double[Tier.values().length];
+
+	/** The compute time of each tier per byte, in seconds. */
+	private final double[] perByte = new double[Tier.values().length];
+
+	/** Whether the fog servers aggregate the packages they get reduced. */
+	private final boolean aggregated;
+
+	/**
+	 * @param config the simulation's configuration.
+	 * @param links the links between the tiers.
+	 * @param codec the codec the packages are reduced with.
+	 */
+	public PlacementCosts(Configuration config, LinkModel links, PayloadCodec codec) {
+		this.links = links;
+		this.codec = codec;
+		for (Tier tier : Tier.values()) {
+			String prefix = "placement." + tier;
+			base[tier.ordinal()] = config.getDouble(prefix + "[@base]", 0);
+			perByte[tier.ordinal()] = config.getDouble(prefix + "[@perbyte]", 0);
+		}
+		aggregated = config.getInt(FogAggregator.WINDOW_KEY, 0) > 0;
+	}
+
+	/**
+	 * Calculate the compute time of a reduction.
+	 *
+	 * @param tier the tier that reduces the package.
+	 * @param bytes the size of the original form.
+	 * @return the compute time, in network seconds.
+	 */
+	public double getComputeTime(Tier tier, int bytes) {
+		return base[tier.ordinal()] + perByte[tier.ordinal()] * bytes;
+	}
+
+	/**
+	 * Calculate the size of a package once it is reduced.
+	 *
+	 * @param payload the data of the package, in its original form.
+	 * @return the size of the reduced form, in bytes.
+	 */
+	public int getReducedSize(PackagePayload payload) {
+		return payload.reduce(codec).getSize();
+	}
+
+	/**
+	 * Find out if a package ends its trip at its fog server, aggregated,
+	 * when a tier reduces it. The packages reduced at the cloud are always
+	 * forwarded.
+	 *
+	 * @param tier the tier that reduces the package.
+	 * @return true if the fog server aggregates the package.
+	 */
+	private boolean isAggregated(Tier tier) {
+		return aggregated && tier != Tier.CLOUD;
+	}
+
+	/**
+	 * Estimate how long a package takes to end its trip if a tier reduces
+	 * it: the compute time of the tier, and the transit time and queue wait
+	 * of each hop and server it goes through. Every package waits at its
+	 * fog server, and at the cloud unless the fog server aggregates it,
+	 * whichever tier reduces it.
+	 *
+	 * @param tier the tier that reduces the package.
+	 * @param originHop the first hop of the package.
+	 * @param original the size of the original form, in bytes.
+	 * @param reduced the size of the reduced form, in bytes.
+	 * @param fogQueue the queue of the fog server the package goes to.
+	 * @param cloudQueue the queue of the cloud server.
+	 * @return the estimate, in network seconds.
+	 */
+	public double estimateSeconds(Tier tier, Hop originHop, int original, int reduced,
+			ServiceQueue fogQueue, ServiceQueue cloudQueue) {
+		double seconds = getComputeTime(tier, original);
+		seconds += links.getExpectedTime(originHop, tier == Tier.EDGE ? reduced : original);
+		seconds += fogQueue.getExpectedWait() * links.getTimestep();
+		if (!isAggregated(tier)) {
+			seconds += links.getExpectedTime(Hop.FOG_TO_CLOUD, tier == Tier.CLOUD ? original : reduced);
+			seconds += cloudQueue.getExpectedWait() * links.getTimestep();
+		}
+		return seconds;
+	}
+
+	/**
+	 * Count the bytes a package sends through its hops if a tier reduces
+	 * it. An aggregated package only sends its first hop, and its share of
+	 * the batch isn't counted.
+	 *
+	 * @param tier the tier that reduces the package.
+	 * @param original the size of the original form, in bytes.
+	 * @param reduced the size of the reduced form, in bytes.
+	 * @return the bytes sent.
+	 */
+	public int estimateBytes(Tier tier, int original, int reduced) {
+		int bytes = tier == Tier.EDGE ? reduced : original;
+		if (!isAggregated(tier)) {
+			bytes += tier == Tier.CLOUD ? original : reduced;
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,55 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * Creates the placement policy chosen in the placement section of the
+ * simulation's config.xml:
+ *
+ * <pre>
+ * &lt;placement policy="adaptive" bytecost="0.0001"&gt;
+ *   &lt;edge base="0.005" perbyte="0.0001"/&gt;
+ *   &lt;fog base="0.001" perbyte="0.00001"/&gt;
+ *   &lt;cloud base="0.0005" perbyte="0.000001"/&gt;
+ * &lt;/placement&gt;
+ * </pre>
+ *
+ * The policy is origin (the default), edge, fog, cloud or adaptive, and
+ * bytecost is the seconds each byte sent is worth to the adaptive policy.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class PlacementPolicies {
+
+	/** The policy used when none is configured. */
+	public static final String DEFAULT_POLICY = "origin";
+
+	/**
+	 * Forbid the instantiation of this utility class.
+	 */
+	private PlacementPolicies() {
+		// Do nothing.
+	}
+
+	/**
+	 * Create the configured policy.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param costs the costs of reducing at each tier.
+	 * @return the policy.
+	 */
+	public static PlacementPolicy create(Configuration config, PlacementCosts costs) {
+		String name = config.getString("placement[@policy]", DEFAULT_POLICY);
+		if (name.equalsIgnoreCase("origin")) {
+			return new OriginPlacementPolicy();
+		} else if (name.equalsIgnoreCase("adaptive")) {
+			return new AdaptivePlacementPolicy(costs, config.getDouble("placement[@bytecost]", 0));
+		}
+		for (Tier tier : Tier.values()) {
+			if (name.equalsIgnoreCase(tier.toString())) {
+				return new StaticPlacementPolicy(tier);
+			}
+		}
+		throw new RuntimeException("Unknown placement policy " + name);
+	}
+}
@@ -0,0 +1,32 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import de.nec.nle.siafu.edgeFogCloud.PackagePayload;
+import de.nec.nle.siafu.edgeFogCloud.ServiceQueue;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+
+/**
+ * Decides which tier reduces a package. The decision is made once, when
+ * the package leaves its origin, and only the edge servers can reduce the
+ * packages they send, so a package from any other origin is reduced at the
+ * fog or at the cloud.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public interface PlacementPolicy {
+
+	/**
+	 * @return the name of the policy, used to select it in config.xml.
+	 */
+	String getName();
+
+	/**
+	 * Choose the tier that reduces a package.
+	 *
+	 * @param originHop the first hop of the package, which tells its origin.
+	 * @param payload the data of the package, in its original form.
+	 * @param fogQueue the queue of the fog server the package goes to.
+	 * @param cloudQueue the queue of the cloud server.
+	 * @return the tier.
+	 */
+	Tier place(Hop originHop, PackagePayload payload, ServiceQueue fogQueue, ServiceQueue cloudQueue);
+}
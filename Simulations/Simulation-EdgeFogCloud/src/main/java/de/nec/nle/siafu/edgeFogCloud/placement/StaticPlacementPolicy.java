@@ -0,0 +1,42 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import de.nec.nle.siafu.edgeFogCloud.PackagePayload;
+import de.nec.nle.siafu.edgeFogCloud.ServiceQueue;
+import de.nec.nle.siafu.edgeFogCloud.network.Hop;
+
+/**
+ * Reduces every package at the same tier, or at the fog for the packages
+ * that don't start from an edge server when that tier is the edge.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class StaticPlacementPolicy implements PlacementPolicy {
+
+	/** The tier that reduces the packages. */
+	private final Tier tier;
+
+	/**
+	 * @param tier the tier that reduces the packages.
+	 */
+	StaticPlacementPolicy(Tier tier) {
+		this.tier = tier;
+	}
+
+	/**
+	 * @return the name of the tier.
+	 */
+	public String getName() {
+		return tier.toString();
+	}
+
+	/**
+	 * @param originHop the first hop of the package.
+	 * @param payload the data of the package.
+	 * @param fogQueue the queue of the fog server.
+	 * @param cloudQueue the queue of the cloud server.
+	 * @return the tier, a constant decision.
+	 */
+	public Tier place(Hop originHop, PackagePayload payload, ServiceQueue fogQueue, ServiceQueue cloudQueue) {
+		return tier == Tier.EDGE && originHop != Hop.EDGE_TO_FOG ? Tier.FOG : tier;
+	}
+}
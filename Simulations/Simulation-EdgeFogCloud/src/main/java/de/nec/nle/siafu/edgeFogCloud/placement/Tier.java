@@ -0,0 +1,45 @@
+package de.nec.nle.siafu.edgeFogCloud.placement;
+
+import de.nec.nle.siafu.types.FlatData;
+import de.nec.nle.siafu.types.Publishable;
+import de.nec.nle.siafu.types.Text;
+
+/**
+ * The tiers a package can be reduced at.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public enum Tier implements Publishable {
+	/** At the edge server the package starts from. */
+	EDGE("edge"),
+	/** At the fog server the package goes through. */
+	FOG("fog"),
+	/** At the cloud server. */
+	CLOUD("cloud");
+
+	/** The name of the tier in config.xml. */
+	private final String name;
+
+	/**
+	 * @param name the name of the tier in config.xml.
+	 */
+	private Tier(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the name of the tier in config.xml.
+	 */
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * Flatten the name of the tier.
+	 *
+	 * @return a flatenned text with the name.
+	 */
+	public FlatData flatten() {
+		return new Text(name).flatten();
+	}
+}
@@ -0,0 +1,28 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Decides which cloud server ingests a package, when the cloud tier is
+ * sharded between several cloud servers.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public interface CloudPartitioner {
+
+	/**
+	 * @return the name of the partitioning, used to select it in config.xml.
+	 */
+	String getName();
+
+	/**
+	 * Choose the cloud server for a package.
+	 *
+	 * @param a the Agent that represents the package, or null for a batch
+	 *            of the fog aggregation, which has no package of its own.
+	 * @param fogServer the fog server the package is sent from.
+	 * @return the cloud server.
+	 */
+	Place select(Agent a, Place fogServer);
+}
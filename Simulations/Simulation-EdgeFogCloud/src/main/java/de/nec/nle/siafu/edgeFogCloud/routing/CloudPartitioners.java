@@ -0,0 +1,57 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Creates the partitioning of the cloud tier chosen in the clouds section
+ * of the simulation's config.xml, e.g.
+ * &lt;clouds partition="origin" replicas="1"/&gt;. The partitioning is
+ * origin (the default), app, payload or fog, hashing each package by that
+ * key, or nearest, the cloud server nearest to the fog server. With a
+ * single cloud server, every partitioning sends all the packages to it.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class CloudPartitioners {
+
+	/** The partitioning used when none is configured. */
+	public static final String DEFAULT_PARTITION = "origin";
+
+	/**
+	 * Forbid the instantiation of this utility class.
+	 */
+	private CloudPartitioners() {
+		// Do nothing.
+	}
+
+	/**
+	 * Create the configured partitioning.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param cloudServers the cloud servers.
+	 * @param originField the field of the agents holding their origin.
+	 * @param applicationField the field of the agents holding their
+	 *            application.
+	 * @param payloadField the field of the agents holding their payload.
+	 * @return the partitioning.
+	 */
+	public static CloudPartitioner create(Configuration config, Place[] cloudServers, String originField,
+			String applicationField, String payloadField)
+	{
+		String name = config.getString("clouds[@partition]", DEFAULT_PARTITION);
+		if(name.equalsIgnoreCase("nearest"))
+		{
+			return new NearestCloudPartitioner(cloudServers);
+		}
+		for(HashCloudPartitioner.Key key : HashCloudPartitioner.Key.values())
+		{
+			if(name.equalsIgnoreCase(key.toString()))
+			{
+				return new HashCloudPartitioner(cloudServers, key, originField, applicationField, payloadField);
+			}
+		}
+		throw new RuntimeException("Unknown cloud partitioning " + name);
+	}
+}
@@ -0,0 +1,108 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.Arrays;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Sends all the packages of an origin to the same fog server, by hashing
+ * the origin onto a ring where each fog server holds a number of virtual
+ * nodes. Adding or removing a fog server only moves the origins next to its
+ * nodes. Finding the fog server is a binary search on the ring.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class ConsistentHashFogPolicy implements FogSelectionPolicy {
+
+	/** The field of the agent holding its origin. */
+	private final String originField;
+
+	/** The hashes of the virtual nodes, sorted. */
+	private final int[] ring;
+
+	/** The fog server of each virtual node, in the order of ring. */
+	private final Place[] owners;
+
+	/**
+	 * @param fogServers the fog servers.
+	 * @param virtualNodes the virtual nodes of each fog server.
+	 * @param originField the field of the agent holding its origin.
+	 */
+	ConsistentHashFogPolicy(Place[] fogServers, int virtualNodes, String originField)
+	{
+		this.originField = originField;
+		int nodes = fogServers.length * Math.max(virtualNodes, 1);
+		long[] sorted = new long[nodes];
+		int n = 0;
+		for(int i = 0; i < fogServers.length; i++)
+		{
+			for(int v = 0; v < Math.max(virtualNodes, 1); v++)
+			{
+				int hash = mix((fogServers[i].getName() + "#" + v).hashCode());
+				// The hash in the high half and the server in the low half,
+				// so sorting orders the nodes by hash.
+				sorted[n++] = ((long) hash << 32) | i;
+			}
+		}
+		Arrays.sort(sorted);
+		ring = new int[nodes];
+		owners = new Place[nodes];
+		for(int i = 0; i < nodes; i++)
+		{
+			ring[i] = (int) (sorted[i] >> 32);
+			owners[i] = fogServers[(int) sorted[i]];
+		}
+	}
+
+	/**
+	 * @return "consistent-hash".
+	 */
+	public String getName()
+	{
+		return "consistent-hash";
+	}
+
+	/**
+	 * @param a the package.
+	 * @return the fog server owning the first virtual node after the hash of
+	 *         the origin of the package.
+	 */
+	public Place select(Agent a)
+	{
+		int hash = mix(((Place) a.get(originField)).getName().hashCode());
+		int position = Arrays.binarySearch(ring, hash);
+		if(position < 0)
+		{
+			position = -position - 1;
+		}
+		return owners[position == ring.length ? 0 : position];
+	}
+
+	/**
+	 * Nothing to do, the ring doesn't depend on the load.
+	 *
+	 * @param fogServer the fog server.
+	 */
+	public void release(Place fogServer)
+	{
+		// Do nothing.
+	}
+
+	/**
+	 * Spread the bits of a String hash, which are poorly distributed for
+	 * similar names.
+	 *
+	 * @param hash the hash.
+	 * @return the mixed hash.
+	 */
+	private static int mix(int hash)
+	{
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+}
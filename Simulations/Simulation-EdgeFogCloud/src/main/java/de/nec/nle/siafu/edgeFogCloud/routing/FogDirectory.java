@@ -0,0 +1,54 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.HashSet;
+
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * The directory the fog servers look up to find which peer holds the data
+ * of the application 1, so an interoperability request can go straight to
+ * that peer instead of through the cloud. Each fog server registers itself
+ * when it receives data from the application 1. The directory is replicated
+ * at every fog server, so looking it up takes no hop.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class FogDirectory {
+
+	/** The fog servers that hold data of the application 1. */
+	private final HashSet<Place> holders = new HashSet<Place>();
+
+	/** The lookups made, and the ones that found the data. */
+	private long lookups, hits;
+
+	/**
+	 * Register a fog server as holding data of the application 1.
+	 *
+	 * @param fogServer the fog server.
+	 */
+	public void register(Place fogServer) {
+		holders.add(fogServer);
+	}
+
+	/**
+	 * Look up the peer that holds the data of a fog server.
+	 *
+	 * @param fogTarget the fog server whose data is wanted.
+	 * @return the peer to ask, or null if no peer holds the data.
+	 */
+	public Place lookup(Place fogTarget) {
+		lookups++;
+		if (!holders.contains(fogTarget)) {
+			return null;
+		}
+		hits++;
+		return fogTarget;
+	}
+
+	/**
+	 * @return the lookups that found the data, out of all the lookups, as text.
+	 */
+	public String toString() {
+		return hits + "/" + lookups + " directory hits";
+	}
+}
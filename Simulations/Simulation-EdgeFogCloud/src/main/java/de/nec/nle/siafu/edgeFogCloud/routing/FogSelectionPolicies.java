@@ -0,0 +1,116 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.Arrays;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.edgeFogCloud.NearestPlaceMap;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Creates the fog selection policy chosen in the fogselection section of
+ * the simulation's config.xml:
+ *
+ * <pre>
+ * &lt;fogselection&gt;
+ *   &lt;policy&gt;nearest&lt;/policy&gt;
+ *   &lt;virtualnodes&gt;100&lt;/virtualnodes&gt;
+ *   &lt;weight place="Fog-10.20" value="2"/&gt;
+ * &lt;/fogselection&gt;
+ * </pre>
+ *
+ * The policy is nearest (the default), least-loaded, power-of-two,
+ * consistent-hash or weighted-random. The virtual nodes are used by
+ * consistent-hash, and the weights, 1 for the fog servers not listed, by
+ * weighted-random.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class FogSelectionPolicies {
+
+	/** The policy used when none is configured. */
+	public static final String DEFAULT_POLICY = "nearest";
+
+	/** The virtual nodes of each fog server when none are configured. */
+	public static final int DEFAULT_VIRTUAL_NODES = 100;
+
+	/**
+	 * Forbid the instantiation of this utility class.
+	 */
+	private FogSelectionPolicies() {
+		// Do nothing.
+	}
+
+	/**
+	 * Create the configured policy.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param nearestFogServers the nearest fog server to each cell of the map,
+	 *            which also lists the fog servers.
+	 * @param originField the field of the agents holding their origin.
+	 * @return the policy.
+	 */
+	public static FogSelectionPolicy create(Configuration config, NearestPlaceMap nearestFogServers,
+			String originField)
+	{
+		String name = config.getString("fogselection.policy", DEFAULT_POLICY);
+		Place[] fogServers = nearestFogServers.getPlaces();
+		if(name.equalsIgnoreCase("nearest"))
+		{
+			return new NearestFogPolicy(nearestFogServers);
+		}
+		else if(name.equalsIgnoreCase("least-loaded"))
+		{
+			return new LeastLoadedFogPolicy(fogServers);
+		}
+		else if(name.equalsIgnoreCase("power-of-two"))
+		{
+			return new PowerOfTwoFogPolicy(fogServers);
+		}
+		else if(name.equalsIgnoreCase("consistent-hash"))
+		{
+			return new ConsistentHashFogPolicy(fogServers,
+					config.getInt("fogselection.virtualnodes", DEFAULT_VIRTUAL_NODES), originField);
+		}
+		else if(name.equalsIgnoreCase("weighted-random"))
+		{
+			return new WeightedRandomFogPolicy(fogServers, readWeights(config, fogServers));
+		}
+		else
+		{
+			throw new RuntimeException("Unknown fog selection policy " + name);
+		}
+	}
+
+	/**
+	 * Read the weight of each fog server.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param fogServers the fog servers.
+	 * @return the weights, in the order of the fog servers.
+	 */
+	private static double[] readWeights(Configuration config, Place[] fogServers)
+	{
+		double[] weights = new double[fogServers.length];
+		Arrays.fill(weights, 1);
+		String[] places = config.getStringArray("fogselection.weight[@place]");
+		for(int i = 0; i < places.length; i++)
+		{
+			double weight = config.getDouble("fogselection.weight(" + i + ")[@value]", 1);
+			boolean found = false;
+			for(int j = 0; j < fogServers.length; j++)
+			{
+				if(fogServers[j].getName().equals(places[i]))
+				{
+					weights[j] = weight;
+					found = true;
+				}
+			}
+			if(!found)
+			{
+				throw new RuntimeException("No fog server named " + places[i]);
+			}
+		}
+		return weights;
+	}
+}
@@ -0,0 +1,37 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Decides which fog server a package goes to. Every decision must take
+ * constant or logarithmic time in the amount of fog servers, since it's
+ * made on every trip of every package.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public interface FogSelectionPolicy {
+
+	/**
+	 * @return the name of the policy, used to select it in config.xml.
+	 */
+	String getName();
+
+	/**
+	 * Choose the fog server for a package, which the policies that follow
+	 * the load of the servers count as outstanding at that server.
+	 *
+	 * @param a the Agent that represents the package, at its origin.
+	 * @return the fog server.
+	 */
+	Place select(Agent a);
+
+	/**
+	 * Learn that a package this policy chose a fog server for is done with
+	 * it, served, dropped or sent elsewhere. It's called once for each
+	 * {@link #select(Agent)}.
+	 *
+	 * @param fogServer the fog server chosen for the package.
+	 */
+	void release(Place fogServer);
+}
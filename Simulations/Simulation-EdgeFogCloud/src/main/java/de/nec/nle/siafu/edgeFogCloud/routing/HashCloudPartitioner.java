@@ -0,0 +1,127 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import de.nec.nle.siafu.edgeFogCloud.PackagePayload;
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Sends each package to the cloud server its key hashes to: its origin, its
+ * application, the ontology ids of its payload or its fog server. The
+ * batches of the fog aggregation are hashed by their fog server.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class HashCloudPartitioner implements CloudPartitioner {
+
+	/** The keys the packages can be hashed by. */
+	enum Key
+	{
+		/** The place the package comes from. */
+		ORIGIN,
+		/** The application that sent the package. */
+		APP,
+		/** The ontology ids of the payload. */
+		PAYLOAD,
+		/** The fog server the package is sent from. */
+		FOG
+	}
+
+	/** The cloud servers. */
+	private final Place[] cloudServers;
+
+	/** The key the packages are hashed by. */
+	private final Key key;
+
+	/** The fields of the agents holding their origin, application and payload. */
+	private final String originField, applicationField, payloadField;
+
+	/**
+	 * @param cloudServers the cloud servers.
+	 * @param key the key the packages are hashed by.
+	 * @param originField the field of the agents holding their origin.
+	 * @param applicationField the field of the agents holding their
+	 *            application.
+	 * @param payloadField the field of the agents holding their payload.
+	 */
+	HashCloudPartitioner(Place[] cloudServers, Key key, String originField, String applicationField,
+			String payloadField)
+	{
+		this.cloudServers = cloudServers;
+		this.key = key;
+		this.originField = originField;
+		this.applicationField = applicationField;
+		this.payloadField = payloadField;
+	}
+
+	/**
+	 * @return the name of the key.
+	 */
+	public String getName()
+	{
+		return key.toString().toLowerCase();
+	}
+
+	/**
+	 * @param a the package, or null for a batch.
+	 * @param fogServer the fog server the package is sent from.
+	 * @return the cloud server the key hashes to.
+	 */
+	public Place select(Agent a, Place fogServer)
+	{
+		if(cloudServers.length == 1)
+		{
+			return cloudServers[0];
+		}
+		return cloudServers[Math.floorMod(mix(hash(a, fogServer)), cloudServers.length)];
+	}
+
+	/**
+	 * @param a the package, or null for a batch.
+	 * @param fogServer the fog server the package is sent from.
+	 * @return the hash of the key of the package.
+	 */
+	private int hash(Agent a, Place fogServer)
+	{
+		if(a == null || key == Key.FOG)
+		{
+			return fogServer.getName().hashCode();
+		}
+		switch(key)
+		{
+		case ORIGIN:
+			return ((Place) a.get(originField)).getName().hashCode();
+		case APP:
+			return a.get(applicationField).toString().hashCode();
+		default:
+			Object data = a.get(payloadField);
+			if(!(data instanceof PackagePayload))
+			{
+				return fogServer.getName().hashCode();
+			}
+			// Both forms share the ids, so a package keeps its cloud server
+			// whether it's reduced or not.
+			int hash = 1;
+			for(int i = 0; i < PackagePayload.VALUES; i++)
+			{
+				hash = 31 * hash + ((PackagePayload) data).getReducedValue(i);
+			}
+			return hash;
+		}
+	}
+
+	/**
+	 * Spread the bits of a hash, so that close keys land on different cloud
+	 * servers.
+	 *
+	 * @param hash the hash.
+	 * @return the mixed hash.
+	 */
+	private static int mix(int hash)
+	{
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,156 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.HashMap;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Sends each package to the fog server with the fewest outstanding
+ * packages: the ones sent to it that it hasn't served yet. The fog servers
+ * are kept in a binary min-heap on those counts, so choosing is a read of
+ * its top, and each choice and each release moves one server through the
+ * heap.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class LeastLoadedFogPolicy implements FogSelectionPolicy {
+
+	/** The fog servers. */
+	private final Place[] fogServers;
+
+	/** The outstanding packages of each fog server. */
+	private final int[] outstanding;
+
+	/** The position of each fog server in fogServers. */
+	private final HashMap<Place, Integer> positions;
+
+	/** The heap, holding positions in fogServers. */
+	private final int[] heap;
+
+	/** Where each fog server is in the heap. */
+	private final int[] heapPositions;
+
+	/**
+	 * @param fogServers the fog servers.
+	 */
+	LeastLoadedFogPolicy(Place[] fogServers)
+	{
+		this.fogServers = fogServers;
+		outstanding = new int[fogServers.length];
+		positions = new HashMap<Place, Integer>(fogServers.length * 2);
+		heap = new int[fogServers.length];
+		heapPositions = new int[fogServers.length];
+		for(int i = 0; i < fogServers.length; i++)
+		{
+			positions.put(fogServers[i], Integer.valueOf(i));
+			heap[i] = i;
+			heapPositions[i] = i;
+		}
+	}
+
+	/**
+	 * @return "least-loaded".
+	 */
+	public String getName()
+	{
+		return "least-loaded";
+	}
+
+	/**
+	 * @param a the package.
+	 * @return the fog server with the fewest outstanding packages, which
+	 *         then moves down the heap.
+	 */
+	public Place select(Agent a)
+	{
+		int fogServer = heap[0];
+		outstanding[fogServer]++;
+		siftDown(0);
+		return fogServers[fogServer];
+	}
+
+	/**
+	 * Move the fog server up the heap, now that it has one package less.
+	 *
+	 * @param fogServer the fog server.
+	 */
+	public void release(Place fogServer)
+	{
+		Integer position = positions.get(fogServer);
+		if(position != null && outstanding[position.intValue()] > 0)
+		{
+			outstanding[position.intValue()]--;
+			siftUp(heapPositions[position.intValue()]);
+		}
+	}
+
+	/**
+	 * Restore the heap below a node whose load grew.
+	 *
+	 * @param node the position in the heap.
+	 */
+	private void siftDown(int node)
+	{
+		while(true)
+		{
+			int smallest = node;
+			int left = 2 * node + 1;
+			int right = left + 1;
+			if(left < heap.length && load(left) < load(smallest))
+			{
+				smallest = left;
+			}
+			if(right < heap.length && load(right) < load(smallest))
+			{
+				smallest = right;
+			}
+			if(smallest == node)
+			{
+				return;
+			}
+			swap(node, smallest);
+			node = smallest;
+		}
+	}
+
+	/**
+	 * Restore the heap above a node whose load shrank.
+	 *
+	 * @param node the position in the heap.
+	 */
+	private void siftUp(int node)
+	{
+		while(node > 0)
+		{
+			int parent = (node - 1) / 2;
+			if(load(parent) <= load(node))
+			{
+				return;
+			}
+			swap(node, parent);
+			node = parent;
+		}
+	}
+
+	/**
+	 * @param node the position in the heap.
+	 * @return the outstanding packages of the fog server at that position.
+	 */
+	private int load(int node)
+	{
+		return outstanding[heap[node]];
+	}
+
+	/**
+	 * Swap two nodes of the heap.
+	 */
+	private void swap(int first, int second)
+	{
+		int fogServer = heap[first];
+		heap[first] = heap[second];
+		heap[second] = fogServer;
+		heapPositions[heap[first]] = first;
+		heapPositions[heap[second]] = second;
+	}
+}
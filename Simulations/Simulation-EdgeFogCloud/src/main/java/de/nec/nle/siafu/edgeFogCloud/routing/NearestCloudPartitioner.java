@@ -0,0 +1,61 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.HashMap;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Sends each package to the cloud server nearest to its fog server, like a
+ * region served by its own backend. The nearest cloud server of each fog
+ * server is found once.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class NearestCloudPartitioner implements CloudPartitioner {
+
+	/** The cloud servers. */
+	private final Place[] cloudServers;
+
+	/** The nearest cloud server of each fog server found so far, by name. */
+	private final HashMap<String, Place> nearest = new HashMap<String, Place>();
+
+	/**
+	 * @param cloudServers the cloud servers.
+	 */
+	NearestCloudPartitioner(Place[] cloudServers)
+	{
+		this.cloudServers = cloudServers;
+	}
+
+	/**
+	 * @return "nearest".
+	 */
+	public String getName()
+	{
+		return "nearest";
+	}
+
+	/**
+	 * @param a the package, or null for a batch.
+	 * @param fogServer the fog server the package is sent from.
+	 * @return the cloud server nearest to the fog server.
+	 */
+	public Place select(Agent a, Place fogServer)
+	{
+		Place cloudServer = nearest.get(fogServer.getName());
+		if(cloudServer == null)
+		{
+			cloudServer = cloudServers[0];
+			for(Place candidate : cloudServers)
+			{
+				if(candidate.distanceFrom(fogServer.getPos()) < cloudServer.distanceFrom(fogServer.getPos()))
+				{
+					cloudServer = candidate;
+				}
+			}
+			nearest.put(fogServer.getName(), cloudServer);
+		}
+		return cloudServer;
+	}
+}
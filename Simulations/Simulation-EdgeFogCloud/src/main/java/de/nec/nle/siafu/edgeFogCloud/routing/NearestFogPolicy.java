@@ -0,0 +1,52 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import de.nec.nle.siafu.edgeFogCloud.NearestPlaceMap;
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Sends each package to the fog server nearest to it, the routing the
+ * simulation has always used.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class NearestFogPolicy implements FogSelectionPolicy {
+
+	/** The nearest fog server to each cell of the map. */
+	private final NearestPlaceMap nearestFogServers;
+
+	/**
+	 * @param nearestFogServers the nearest fog server to each cell of the map.
+	 */
+	NearestFogPolicy(NearestPlaceMap nearestFogServers)
+	{
+		this.nearestFogServers = nearestFogServers;
+	}
+
+	/**
+	 * @return "nearest".
+	 */
+	public String getName()
+	{
+		return "nearest";
+	}
+
+	/**
+	 * @param a the package.
+	 * @return the fog server nearest to the package, a single array read.
+	 */
+	public Place select(Agent a)
+	{
+		return nearestFogServers.getNearest(a.getPos());
+	}
+
+	/**
+	 * Nothing to do, the distances don't change.
+	 *
+	 * @param fogServer the fog server.
+	 */
+	public void release(Place fogServer)
+	{
+		// Do nothing.
+	}
+}
@@ -0,0 +1,76 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Picks two fog servers at random and sends the package to the one with
+ * fewer outstanding packages: the ones sent to it that it hasn't served
+ * yet.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class PowerOfTwoFogPolicy implements FogSelectionPolicy {
+
+	/** The fog servers. */
+	private final Place[] fogServers;
+
+	/** The outstanding packages of each fog server. */
+	private final int[] outstanding;
+
+	/** The position of each fog server in fogServers. */
+	private final HashMap<Place, Integer> positions;
+
+	/**
+	 * @param fogServers the fog servers.
+	 */
+	PowerOfTwoFogPolicy(Place[] fogServers)
+	{
+		this.fogServers = fogServers;
+		outstanding = new int[fogServers.length];
+		positions = new HashMap<Place, Integer>(fogServers.length * 2);
+		for(int i = 0; i < fogServers.length; i++)
+		{
+			positions.put(fogServers[i], Integer.valueOf(i));
+		}
+	}
+
+	/**
+	 * @return "power-of-two".
+	 */
+	public String getName()
+	{
+		return "power-of-two";
+	}
+
+	/**
+	 * @param a the package.
+	 * @return the less loaded of two random fog servers.
+	 */
+	public Place select(Agent a)
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(fogServers.length);
+		int second = random.nextInt(fogServers.length);
+		int chosen = outstanding[second] < outstanding[first] ? second : first;
+		outstanding[chosen]++;
+		return fogServers[chosen];
+	}
+
+	/**
+	 * Count one package less at the fog server.
+	 *
+	 * @param fogServer the fog server.
+	 */
+	public void release(Place fogServer)
+	{
+		Integer position = positions.get(fogServer);
+		if(position != null && outstanding[position.intValue()] > 0)
+		{
+			outstanding[position.intValue()]--;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package de.nec.nle.siafu.edgeFogCloud.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * Sends each package to a random fog server, chosen in proportion to the
+ * weight of each server. The weights are kept as a cumulative table, so
+ * choosing is a binary search.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class WeightedRandomFogPolicy implements FogSelectionPolicy {
+
+	/** The fog servers. */
+	private final Place[] fogServers;
+
+	/** The sum of the weights of each fog server and all the ones before it. */
+	private final double[] cumulativeWeights;
+
+	/**
+	 * @param fogServers the fog servers.
+	 * @param weights the weight of each fog server.
+	 */
+	WeightedRandomFogPolicy(Place[] fogServers, double[] weights)
+	{
+		this.fogServers = fogServers;
+		cumulativeWeights = new double[fogServers.length];
+		double total = 0;
+		for(int i = 0; i < fogServers.length; i++)
+		{
+			if(weights[i] < 0)
+			{
+				throw new RuntimeException("Negative weight for " + fogServers[i].getName());
+			}
+			total += weights[i];
+			cumulativeWeights[i] = total;
+		}
+		if(total <= 0)
+		{
+			throw new RuntimeException("The fog servers have no weight");
+		}
+	}
+
+	/**
+	 * @return "weighted-random".
+	 */
+	public String getName()
+	{
+		return "weighted-random";
+	}
+
+	/**
+	 * @param a the package.
+	 * @return a random fog server.
+	 */
+	public Place select(Agent a)
+	{
+		double point = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+		int position = Arrays.binarySearch(cumulativeWeights, point);
+		// An exact hit is the end of a server's share, which belongs to the next one.
+		position = position < 0 ? -position - 1 : position + 1;
+		return fogServers[Math.min(position, fogServers.length - 1)];
+	}
+
+	/**
+	 * Nothing to do, the weights are fixed.
+	 *
+	 * @param fogServer the fog server.
+	 */
+	public void release(Place fogServer)
+	{
+		// Do nothing.
+	}
+}
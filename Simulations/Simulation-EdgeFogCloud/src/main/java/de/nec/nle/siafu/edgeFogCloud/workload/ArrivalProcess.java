@@ -0,0 +1,24 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+/**
+ * Decides when an origin emits its packages. Each origin place has its own
+ * process, since some of them, like the bursty one, keep a state.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public interface ArrivalProcess {
+
+	/**
+	 * @return the name of the process, used to select it in config.xml.
+	 */
+	String getName();
+
+	/**
+	 * Draw the next emission of the origin.
+	 *
+	 * @param previous the time of the previous emission, or the time the
+	 *            simulation started for the first one, in seconds.
+	 * @return the time of the next emission, in seconds, after previous.
+	 */
+	double next(double previous);
+}
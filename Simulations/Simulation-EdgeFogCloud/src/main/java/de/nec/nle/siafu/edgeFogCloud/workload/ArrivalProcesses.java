@@ -0,0 +1,121 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.util.TimeZone;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * Creates the arrival process of each origin type, chosen in the arrivals
+ * section of the simulation's config.xml:
+ *
+ * <pre>
+ * &lt;arrivals&gt;
+ *   &lt;origin type="House" process="poisson" rate="0.01"/&gt;
+ *   &lt;origin type="Edge" process="mmpp" rate="0.005" burstrate="0.1" calm="600" burst="60"/&gt;
+ * &lt;/arrivals&gt;
+ * </pre>
+ *
+ * The process is closed (the default, each package sent again as soon as it
+ * gets back), poisson, fixed, mmpp or diurnal, and the rates are packages
+ * per second of network time from each origin place, the clock the links
+ * and queues run on. mmpp also takes the rate of its bursts and the mean
+ * seconds of its calm and burst stretches, and diurnal the amplitude of its
+ * swing around the mean rate and the hour it peaks at.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class ArrivalProcesses {
+
+	/** The process used when none is configured. */
+	public static final String DEFAULT_PROCESS = "closed";
+
+	/**
+	 * Forbid the instantiation of this utility class.
+	 */
+	private ArrivalProcesses() {
+		// Do nothing.
+	}
+
+	/**
+	 * Get the name of the process configured for an origin type.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param originType the place type of the origin.
+	 * @return the name of the process.
+	 */
+	public static String getProcessName(Configuration config, String originType)
+	{
+		int origin = find(config, originType);
+		return origin < 0 ? DEFAULT_PROCESS
+				: config.getString("arrivals.origin(" + origin + ")[@process]", DEFAULT_PROCESS);
+	}
+
+	/**
+	 * Create the process of an origin place.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param originType the place type of the origin.
+	 * @param zone the time zone of the simulation's clock.
+	 * @return the process, or null if the origin is closed.
+	 */
+	public static ArrivalProcess create(Configuration config, String originType, TimeZone zone)
+	{
+		String name = getProcessName(config, originType);
+		if(name.equalsIgnoreCase(DEFAULT_PROCESS))
+		{
+			return null;
+		}
+		String origin = "arrivals.origin(" + find(config, originType) + ")";
+		double rate = config.getDouble(origin + "[@rate]", 0);
+		if(rate <= 0)
+		{
+			throw new RuntimeException("The " + originType + " origins need a positive rate");
+		}
+		if(name.equalsIgnoreCase("poisson"))
+		{
+			return new PoissonArrivals(rate);
+		}
+		else if(name.equalsIgnoreCase("fixed"))
+		{
+			return new FixedRateArrivals(rate);
+		}
+		else if(name.equalsIgnoreCase("mmpp"))
+		{
+			return new MmppArrivals(rate, config.getDouble(origin + "[@burstrate]", rate * 10),
+					config.getDouble(origin + "[@calm]", 600), config.getDouble(origin + "[@burst]", 60));
+		}
+		else if(name.equalsIgnoreCase("diurnal"))
+		{
+			double amplitude = config.getDouble(origin + "[@amplitude]", 0.5);
+			if(amplitude < 0 || amplitude > 1)
+			{
+				throw new RuntimeException("The amplitude of the " + originType + " origins must be between 0 and 1");
+			}
+			return new DiurnalArrivals(rate, amplitude, config.getDouble(origin + "[@peak]", 14), zone);
+		}
+		else
+		{
+			throw new RuntimeException("Unknown arrival process " + name);
+		}
+	}
+
+	/**
+	 * Find the arrivals entry of an origin type.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param originType the place type of the origin.
+	 * @return the position of the entry, or -1 if there's none.
+	 */
+	private static int find(Configuration config, String originType)
+	{
+		String[] types = config.getStringArray("arrivals.origin[@type]");
+		for(int i = 0; i < types.length; i++)
+		{
+			if(types[i].equals(originType))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,106 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * Reads a binary trace, in big-endian order: the magic number 0x53465452
+ * ("SFTR") and the format version 1, followed by one record per package:
+ *
+ * <pre>
+ * double  time, in seconds
+ * short   length of the origin, in bytes
+ * byte[]  origin, in UTF-8
+ * byte    app, 1 or 2
+ * byte    amount of ontology ids, 0 for random values
+ * int[]   ontology ids
+ * int     size in bytes, 0 to count it from the values
+ * </pre>
+ *
+ * The origin is read as in the CSV traces. A record with unknown ontology
+ * ids rejects the trace.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class BinaryTraceReader extends TraceReader {
+
+	/** Marks the start of a binary trace. */
+	private static final int MAGIC = 0x53465452;
+
+	/** Version of the binary trace format. */
+	private static final int VERSION = 1;
+
+	/** The records read so far. */
+	private long records;
+
+	/**
+	 * @param file the trace file.
+	 * @param knownValues tells whether the ontology ids of a record are
+	 *            known.
+	 * @throws IOException if the file can't be opened or isn't a binary
+	 *             trace.
+	 */
+	BinaryTraceReader(File file, Predicate<int[]> knownValues) throws IOException
+	{
+		super(file, knownValues);
+		if(!fill(8) || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+		{
+			close();
+			throw new IOException(file + " isn't a binary trace of version " + VERSION);
+		}
+	}
+
+	/**
+	 * Parse the next record.
+	 *
+	 * @return the record, or null at the end of the trace.
+	 * @throws IOException if the file can't be read or ends in a record.
+	 */
+	protected TraceRecord read() throws IOException
+	{
+		if(!fill(1))
+		{
+			return null;
+		}
+		records++;
+		need(10);
+		double time = buffer.getDouble();
+		byte[] origin = new byte[buffer.getShort() & 0xFFFF];
+		need(origin.length + 2);
+		buffer.get(origin);
+		int app = buffer.get();
+		int ids = buffer.get() & 0xFF;
+		need(ids * 4 + 4);
+		int[] values = null;
+		if(ids > 0)
+		{
+			values = new int[ids];
+			for(int i = 0; i < ids; i++)
+			{
+				values[i] = buffer.getInt();
+			}
+			try {
+				checkValues(values);
+			} catch (IllegalArgumentException e) {
+				throw new RuntimeException("Invalid trace record " + records, e);
+			}
+		}
+		return new TraceRecord(time, new String(origin, StandardCharsets.UTF_8), app, values, buffer.getInt());
+	}
+
+	/**
+	 * Make sure the rest of a record is in the buffer.
+	 *
+	 * @param bytes the bytes needed.
+	 * @throws IOException if the file ends before that.
+	 */
+	private void need(int bytes) throws IOException
+	{
+		if(!fill(bytes))
+		{
+			throw new IOException("The trace ends in the middle of a record");
+		}
+	}
+}
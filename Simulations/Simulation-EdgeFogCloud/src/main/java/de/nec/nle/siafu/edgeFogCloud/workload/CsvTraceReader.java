@@ -0,0 +1,137 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Reads a CSV trace, one package per line:
+ *
+ * <pre>
+ * time,origin,app,payload,size
+ * 0.25,House-120.200,1,1001;2002;3003;4004,96
+ * 0.40,Edge:sensor-17,2,,
+ * </pre>
+ *
+ * The time is in seconds, the origin a place name, a place type or a place
+ * type and a key mapped onto one of its places, and the app 1 or 2. The
+ * payload holds the ontology ids of the disease, disease driver, symptom
+ * and transmission separated by semicolons, or is left empty for random
+ * values, and the size, in bytes, can be left empty to count it from the
+ * values. A first line that doesn't start with a number, empty lines and
+ * lines starting with # are skipped. A line with unknown ontology ids
+ * rejects the trace.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class CsvTraceReader extends TraceReader {
+
+	/** The bytes of the current line, grown to the longest line. */
+	private byte[] line = new byte[256];
+
+	/** The lines read so far. */
+	private long lines;
+
+	/**
+	 * @param file the trace file.
+	 * @param knownValues tells whether the ontology ids of a record are
+	 *            known.
+	 * @throws IOException if the file can't be opened.
+	 */
+	CsvTraceReader(File file, Predicate<int[]> knownValues) throws IOException
+	{
+		super(file, knownValues);
+	}
+
+	/**
+	 * Parse the next line that holds a record.
+	 *
+	 * @return the record, or null at the end of the trace.
+	 * @throws IOException if the file can't be read.
+	 */
+	protected TraceRecord read() throws IOException
+	{
+		String text;
+		while((text = readLine()) != null)
+		{
+			lines++;
+			text = text.trim();
+			if(text.isEmpty() || text.startsWith("#")
+					|| (lines == 1 && !Character.isDigit(text.charAt(0)) && text.charAt(0) != '.'))
+			{
+				continue;
+			}
+			try {
+				return parse(text);
+			} catch (RuntimeException e) {
+				throw new RuntimeException("Invalid trace line " + lines + ": " + text, e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Read the next line, without its line break.
+	 *
+	 * @return the line, or null at the end of the file.
+	 * @throws IOException if the file can't be read.
+	 */
+	private String readLine() throws IOException
+	{
+		int length = 0;
+		while(fill(1))
+		{
+			byte b = buffer.get();
+			if(b == '\n')
+			{
+				return new String(line, 0, length, StandardCharsets.UTF_8);
+			}
+			if(b == '\r')
+			{
+				continue;
+			}
+			if(length == line.length)
+			{
+				line = Arrays.copyOf(line, length * 2);
+			}
+			line[length++] = b;
+		}
+		return length > 0 ? new String(line, 0, length, StandardCharsets.UTF_8) : null;
+	}
+
+	/**
+	 * Parse a line.
+	 *
+	 * @param text the line.
+	 * @return the record.
+	 */
+	private TraceRecord parse(String text)
+	{
+		String[] fields = text.split(",", -1);
+		if(fields.length < 3)
+		{
+			throw new RuntimeException("Expected time, origin and app");
+		}
+		String app = fields[2].trim();
+		if(app.regionMatches(true, 0, "APP", 0, 3))
+		{
+			app = app.substring(3);
+		}
+		int[] values = null;
+		if(fields.length > 3 && !fields[3].trim().isEmpty())
+		{
+			String[] ids = fields[3].trim().split(";");
+			values = new int[ids.length];
+			for(int i = 0; i < ids.length; i++)
+			{
+				values[i] = Integer.parseInt(ids[i].trim());
+			}
+			checkValues(values);
+		}
+		int size = fields.length > 4 && !fields[4].trim().isEmpty() ? Integer.parseInt(fields[4].trim()) : 0;
+		return new TraceRecord(Double.parseDouble(fields[0].trim()), fields[1].trim(),
+				Integer.parseInt(app), values, size);
+	}
+}
@@ -0,0 +1,80 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emits packages as a Poisson process whose rate follows the time of day of
+ * the simulation, a cosine peaking at a given hour. The gaps are drawn by
+ * thinning: candidates are drawn at the peak rate and each one is kept with
+ * the share of the peak rate its time of day has.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class DiurnalArrivals implements ArrivalProcess {
+
+	/** The seconds in a day. */
+	private static final double DAY = 24 * 3600;
+
+	/** The mean packages emitted per second over a day. */
+	private final double rate;
+
+	/** How far the rate swings around its mean, between 0 and 1. */
+	private final double amplitude;
+
+	/** The hour of the day the rate peaks at. */
+	private final double peakHour;
+
+	/** The time zone of the simulation's clock. */
+	private final TimeZone zone;
+
+	/**
+	 * @param rate the mean packages emitted per second over a day.
+	 * @param amplitude how far the rate swings around its mean, between 0
+	 *            and 1.
+	 * @param peakHour the hour of the day the rate peaks at.
+	 * @param zone the time zone of the simulation's clock.
+	 */
+	DiurnalArrivals(double rate, double amplitude, double peakHour, TimeZone zone)
+	{
+		this.rate = rate;
+		this.amplitude = amplitude;
+		this.peakHour = peakHour;
+		this.zone = zone;
+	}
+
+	/**
+	 * @return "diurnal".
+	 */
+	public String getName()
+	{
+		return "diurnal";
+	}
+
+	/**
+	 * @param previous the time of the previous emission.
+	 * @return the time of the next emission.
+	 */
+	public double next(double previous)
+	{
+		double peakRate = rate * (1 + amplitude);
+		double time = previous;
+		do
+		{
+			time += PoissonArrivals.exponential(peakRate);
+		}
+		while(ThreadLocalRandom.current().nextDouble() * peakRate > getRate(time));
+		return time;
+	}
+
+	/**
+	 * @param time a time, in seconds since the epoch.
+	 * @return the rate at the time of day of that time.
+	 */
+	double getRate(double time)
+	{
+		double local = time + zone.getOffset((long) (time * 1000)) / 1000.0;
+		double hour = (local % DAY + DAY) % DAY / 3600;
+		return rate * (1 + amplitude * Math.cos(2 * Math.PI * (hour - peakHour) / 24));
+	}
+}
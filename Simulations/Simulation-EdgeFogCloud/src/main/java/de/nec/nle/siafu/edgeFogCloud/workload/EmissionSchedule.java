@@ -0,0 +1,344 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.configuration.Configuration;
+
+import de.nec.nle.siafu.model.Agent;
+import de.nec.nle.siafu.model.Place;
+
+/**
+ * The open-loop emissions of the origins whose type has an arrival process.
+ * Each origin place holds the time of its next emission in a queue ordered
+ * by time, so the origins cost nothing until their emission is due. When it
+ * is, the origin takes an idle package of its type and sends it; when all
+ * the packages of the type are on their way, the emission is missed and
+ * counted, since the population bounds how much load can be in flight.
+ * <p>
+ * The packages of the origin types without an arrival process are sent
+ * again as soon as they get back, as the simulation always did.
+ * <p>
+ * When a trace is configured, every origin type is open-loop and the
+ * emissions are the records of the trace instead, read one at a time as
+ * their time comes, with the first record at the start of the simulation.
+ * <p>
+ * The times are seconds since the epoch, but the caller advances them with
+ * the network clock from the start of the simulation, so the rates and the
+ * trace play out in the same time as the links and queues.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class EmissionSchedule {
+
+	/** The next emission of each open-loop origin, the earliest first. */
+	private final PriorityQueue<Emission> emissions = new PriorityQueue<Emission>();
+
+	/** The idle packages of each open-loop origin type. */
+	private final HashMap<String, ArrayDeque<Agent>> idle = new HashMap<String, ArrayDeque<Agent>>();
+
+	/** The process name of each origin type, in configuration order. */
+	private final LinkedHashMap<String, String> processNames = new LinkedHashMap<String, String>();
+
+	/** The emissions sent and missed of each origin type. */
+	private final HashMap<String, long[]> counts = new HashMap<String, long[]>();
+
+	/** The amount of emissions scheduled so far, which breaks ties in order. */
+	private long sequence;
+
+	/** The trace replayed, null if the origins follow their arrival processes. */
+	private TraceReader trace;
+
+	/** The next record of the trace, null once it ended. */
+	private TraceRecord nextRecord;
+
+	/** The seconds added to the times of the trace to get simulation times. */
+	private double traceOffset;
+
+	/** The records of the trace replayed and missed. */
+	private long traceEmitted, traceMissed;
+
+	/** The places of each origin type. */
+	private final Map<String, Place[]> places;
+
+	/** The origin places by name, for the traces. */
+	private final HashMap<String, Place> placesByName = new HashMap<String, Place>();
+
+	/**
+	 * Schedule the first emission of each origin whose type has an arrival
+	 * process, or open the trace if the trace section of config.xml names
+	 * one, e.g. &lt;trace file="traffic.csv" format="csv"/&gt;.
+	 *
+	 * @param config the simulation's configuration.
+	 * @param originTypes the place types of the origins.
+	 * @param places the places of each origin type.
+	 * @param zone the time zone of the simulation's clock.
+	 * @param start the time the simulation starts, in seconds.
+	 */
+	public EmissionSchedule(Configuration config, String[] originTypes, Map<String, Place[]> places,
+			TimeZone zone, double start)
+	{
+		this.places = places;
+		String traceFile = config.getString("trace[@file]", "");
+		if(!traceFile.isEmpty())
+		{
+			trace = TraceReader.open(new File(traceFile), config.getString("trace[@format]", "csv"));
+			nextRecord = trace.next();
+			traceOffset = nextRecord == null ? 0 : start - nextRecord.getTime();
+			for(String type : originTypes)
+			{
+				idle.put(type, new ArrayDeque<Agent>());
+				for(Place origin : places.get(type))
+				{
+					placesByName.put(origin.getName(), origin);
+				}
+			}
+			return;
+		}
+		for(String type : originTypes)
+		{
+			processNames.put(type, ArrivalProcesses.getProcessName(config, type));
+			counts.put(type, new long[2]);
+			for(Place origin : places.get(type))
+			{
+				ArrivalProcess process = ArrivalProcesses.create(config, type, zone);
+				if(process == null)
+				{
+					break;
+				}
+				idle.put(type, new ArrayDeque<Agent>());
+				emissions.add(new Emission(process.next(start), sequence++, origin, process));
+			}
+		}
+	}
+
+	/**
+	 * @param originType the place type of an origin.
+	 * @return true if the origins of the type follow an arrival process.
+	 */
+	public boolean isOpen(String originType)
+	{
+		return idle.containsKey(originType);
+	}
+
+	/**
+	 * Leave a package idle until an origin of its type emits it.
+	 *
+	 * @param a the package.
+	 * @param originType the place type of its origin.
+	 */
+	public void release(Agent a, String originType)
+	{
+		idle.get(originType).add(a);
+	}
+
+	/**
+	 * @return the time of the next emission, or of the next record of the
+	 *         trace, in seconds, or infinity if there are none. The emission
+	 *         may still be missed.
+	 */
+	public double getNextTime()
+	{
+		if(trace != null)
+		{
+			return nextRecord == null ? Double.POSITIVE_INFINITY : nextRecord.getTime() + traceOffset;
+		}
+		return emissions.isEmpty() ? Double.POSITIVE_INFINITY : emissions.peek().time;
+	}
+
+	/**
+	 * Take the next emission due, drawing the one after it.
+	 *
+	 * @param now the current time, in seconds.
+	 * @return the emission, with the package it sends, or null if none is
+	 *         due.
+	 */
+	public Emission poll(double now)
+	{
+		if(trace != null)
+		{
+			return pollTrace(now);
+		}
+		while(!emissions.isEmpty() && emissions.peek().time <= now)
+		{
+			Emission due = emissions.poll();
+			emissions.add(new Emission(due.process.next(due.time), sequence++, due.origin, due.process));
+			String type = due.origin.getType();
+			Agent a = idle.get(type).poll();
+			if(a == null)
+			{
+				counts.get(type)[1]++;
+				continue;
+			}
+			counts.get(type)[0]++;
+			due.agent = a;
+			return due;
+		}
+		return null;
+	}
+
+	/**
+	 * Take the next record of the trace due, reading the one after it.
+	 *
+	 * @param now the current time, in seconds.
+	 * @return the emission, with the package it sends and the record, or
+	 *         null if none is due.
+	 */
+	private Emission pollTrace(double now)
+	{
+		while(nextRecord != null && nextRecord.getTime() + traceOffset <= now)
+		{
+			TraceRecord record = nextRecord;
+			nextRecord = trace.next();
+			if(nextRecord == null)
+			{
+				try {
+					trace.close();
+				} catch (IOException e) {
+					// Nothing left to read.
+				}
+			}
+			Place origin = resolve(record.getOrigin());
+			Agent a = idle.get(origin.getType()).poll();
+			if(a == null)
+			{
+				traceMissed++;
+				continue;
+			}
+			traceEmitted++;
+			Emission emission = new Emission(record.getTime() + traceOffset, sequence++, origin, null);
+			emission.agent = a;
+			emission.record = record;
+			return emission;
+		}
+		return null;
+	}
+
+	/**
+	 * Map the origin of a trace record onto an origin place: a place name is
+	 * that place, a place type a random place of the type, and a type and a
+	 * key separated by a colon always the same place of the type for the
+	 * same key.
+	 *
+	 * @param origin the origin of the record.
+	 * @return the place.
+	 */
+	private Place resolve(String origin)
+	{
+		Place place = placesByName.get(origin);
+		if(place != null)
+		{
+			return place;
+		}
+		int colon = origin.indexOf(':');
+		String type = colon < 0 ? origin : origin.substring(0, colon);
+		Place[] typePlaces = places.get(type);
+		if(!idle.containsKey(type) || typePlaces == null || typePlaces.length == 0)
+		{
+			throw new RuntimeException("The trace origin " + origin + " isn't a package origin");
+		}
+		int pick = colon < 0 ? ThreadLocalRandom.current().nextInt(typePlaces.length)
+				: Math.floorMod(origin.substring(colon + 1).hashCode(), typePlaces.length);
+		return typePlaces[pick];
+	}
+
+	/**
+	 * @return the process, emissions sent and missed of each origin type.
+	 */
+	public String toString()
+	{
+		if(trace != null)
+		{
+			return "trace " + traceEmitted + " replayed, " + traceMissed + " missed"
+					+ (nextRecord == null ? ", ended" : "");
+		}
+		StringBuilder text = new StringBuilder();
+		for(Map.Entry<String, String> entry : processNames.entrySet())
+		{
+			text.append(text.length() > 0 ? "; " : "").append(entry.getKey()).append(' ').append(entry.getValue());
+			if(isOpen(entry.getKey()))
+			{
+				long[] count = counts.get(entry.getKey());
+				text.append(' ').append(count[0]).append(" emitted, ").append(count[1]).append(" missed");
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * The next emission of an origin.
+	 */
+	public static final class Emission implements Comparable<Emission> {
+		/** The time it's due, in seconds. */
+		private final double time;
+		/** The order it was scheduled in. */
+		private final long sequence;
+		/** The origin. */
+		private final Place origin;
+		/** The arrival process of the origin. */
+		private final ArrivalProcess process;
+		/** The package it sends, once it's due. */
+		private Agent agent;
+		/** The trace record it replays, null if it comes from an arrival process. */
+		private TraceRecord record;
+
+		/**
+		 * @param time the time it's due.
+		 * @param sequence the order it was scheduled in.
+		 * @param origin the origin.
+		 * @param process the arrival process of the origin.
+		 */
+		private Emission(double time, long sequence, Place origin, ArrivalProcess process)
+		{
+			this.time = time;
+			this.sequence = sequence;
+			this.origin = origin;
+			this.process = process;
+		}
+
+		/**
+		 * @return the origin.
+		 */
+		public Place getOrigin()
+		{
+			return origin;
+		}
+
+		/**
+		 * @return the package it sends.
+		 */
+		public Agent getAgent()
+		{
+			return agent;
+		}
+
+		/**
+		 * @return the trace record it replays, null if it comes from an
+		 *         arrival process.
+		 */
+		public TraceRecord getRecord()
+		{
+			return record;
+		}
+
+		/**
+		 * Order the emissions by time, and then by the order they were
+		 * scheduled in.
+		 *
+		 * @param other the other emission.
+		 * @return the comparison.
+		 */
+		public int compareTo(Emission other)
+		{
+			int byTime = Double.compare(time, other.time);
+			return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+		}
+	}
+}
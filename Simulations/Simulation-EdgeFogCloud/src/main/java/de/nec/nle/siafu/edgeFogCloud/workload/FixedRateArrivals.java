@@ -0,0 +1,49 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emits packages at a fixed period, like a sensor reporting on a timer. The
+ * first emission falls at a random point of the first period, so the
+ * origins don't all emit in the same iteration.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class FixedRateArrivals implements ArrivalProcess {
+
+	/** The seconds between two emissions. */
+	private final double period;
+
+	/** Whether the first emission was drawn. */
+	private boolean started;
+
+	/**
+	 * @param rate the packages emitted per second.
+	 */
+	FixedRateArrivals(double rate)
+	{
+		this.period = 1 / rate;
+	}
+
+	/**
+	 * @return "fixed".
+	 */
+	public String getName()
+	{
+		return "fixed";
+	}
+
+	/**
+	 * @param previous the time of the previous emission.
+	 * @return one period later, or a random phase for the first emission.
+	 */
+	public double next(double previous)
+	{
+		if(!started)
+		{
+			started = true;
+			return previous + ThreadLocalRandom.current().nextDouble() * period;
+		}
+		return previous + period;
+	}
+}
@@ -0,0 +1,73 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+/**
+ * Emits packages in bursts, as a two-state Markov-modulated Poisson process:
+ * the origin switches between a calm state and a burst state, each lasting
+ * an exponentially distributed time, and emits as a Poisson process at the
+ * rate of its current state.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class MmppArrivals implements ArrivalProcess {
+
+	/** The packages emitted per second in each state, calm first. */
+	private final double[] rates;
+
+	/** The mean seconds spent in each state, calm first. */
+	private final double[] durations;
+
+	/** The current state, 0 for calm and 1 for burst. */
+	private int state;
+
+	/** The time the current state ends, NaN before the first emission. */
+	private double stateEnd = Double.NaN;
+
+	/**
+	 * @param calmRate the packages emitted per second while calm.
+	 * @param burstRate the packages emitted per second in a burst.
+	 * @param calmDuration the mean seconds of a calm stretch.
+	 * @param burstDuration the mean seconds of a burst.
+	 */
+	MmppArrivals(double calmRate, double burstRate, double calmDuration, double burstDuration)
+	{
+		rates = new double[] {calmRate, burstRate};
+		durations = new double[] {calmDuration, burstDuration};
+	}
+
+	/**
+	 * @return "mmpp".
+	 */
+	public String getName()
+	{
+		return "mmpp";
+	}
+
+	/**
+	 * Draw the gap at the rate of the current state, switching states as
+	 * many times as their ends come first. Both the gaps and the states are
+	 * memoryless, so the gap can be drawn again from where the state ended.
+	 *
+	 * @param previous the time of the previous emission.
+	 * @return the time of the next emission.
+	 */
+	public double next(double previous)
+	{
+		double time = previous;
+		if(Double.isNaN(stateEnd))
+		{
+			stateEnd = time + PoissonArrivals.exponential(1 / durations[state]);
+		}
+		while(true)
+		{
+			double emission = rates[state] > 0 ? time + PoissonArrivals.exponential(rates[state])
+					: Double.POSITIVE_INFINITY;
+			if(emission < stateEnd)
+			{
+				return emission;
+			}
+			time = stateEnd;
+			state = 1 - state;
+			stateEnd = time + PoissonArrivals.exponential(1 / durations[state]);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emits packages at exponentially distributed gaps, the memoryless arrivals
+ * of many independent users.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+class PoissonArrivals implements ArrivalProcess {
+
+	/** The packages emitted per second. */
+	private final double rate;
+
+	/**
+	 * @param rate the packages emitted per second.
+	 */
+	PoissonArrivals(double rate)
+	{
+		this.rate = rate;
+	}
+
+	/**
+	 * @return "poisson".
+	 */
+	public String getName()
+	{
+		return "poisson";
+	}
+
+	/**
+	 * @param previous the time of the previous emission.
+	 * @return the previous time plus an exponential gap.
+	 */
+	public double next(double previous)
+	{
+		return previous + exponential(rate);
+	}
+
+	/**
+	 * Draw an exponential gap.
+	 *
+	 * @param rate the rate of the gaps, per second.
+	 * @return the gap, in seconds.
+	 */
+	static double exponential(double rate)
+	{
+		return -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rate;
+	}
+}
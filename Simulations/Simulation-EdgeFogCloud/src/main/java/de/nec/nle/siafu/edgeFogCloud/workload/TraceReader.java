@@ -0,0 +1,156 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import de.nec.nle.siafu.edgeFogCloud.ontology.DiseaseOntologyController;
+
+/**
+ * Streams the records of a trace file through a fixed buffer, so a trace of
+ * any size is replayed in bounded memory. The ontology ids of each record
+ * are checked as it's read, so a bad trace is rejected at the record that
+ * holds the unknown id.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public abstract class TraceReader implements Closeable {
+
+	/** The size of the read buffer. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The trace file. */
+	private final FileChannel channel;
+
+	/** The bytes read and not parsed yet. */
+	protected final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/** Whether the whole file was read. */
+	private boolean ended;
+
+	/** Tells whether the ontology ids of a record are known. */
+	private final Predicate<int[]> knownValues;
+
+	/**
+	 * @param file the trace file.
+	 * @param knownValues tells whether the ontology ids of a record are
+	 *            known.
+	 * @throws IOException if the file can't be opened.
+	 */
+	protected TraceReader(File file, Predicate<int[]> knownValues) throws IOException
+	{
+		this.knownValues = knownValues;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		buffer.flip();
+	}
+
+	/**
+	 * Open a trace file, checking its ontology ids against the ontology.
+	 *
+	 * @param file the trace file.
+	 * @param format "csv" or "binary".
+	 * @return the reader.
+	 */
+	public static TraceReader open(File file, String format)
+	{
+		return open(file, format, DiseaseOntologyController.getInstance()::isReducedSet);
+	}
+
+	/**
+	 * Open a trace file.
+	 *
+	 * @param file the trace file.
+	 * @param format "csv" or "binary".
+	 * @param knownValues tells whether the ontology ids of a record are
+	 *            known.
+	 * @return the reader.
+	 */
+	public static TraceReader open(File file, String format, Predicate<int[]> knownValues)
+	{
+		try {
+			if(format.equalsIgnoreCase("csv"))
+			{
+				return new CsvTraceReader(file, knownValues);
+			}
+			else if(format.equalsIgnoreCase("binary"))
+			{
+				return new BinaryTraceReader(file, knownValues);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Couldn't open the trace " + file, e);
+		}
+		throw new RuntimeException("Unknown trace format " + format);
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @return the record, or null at the end of the trace.
+	 */
+	public TraceRecord next()
+	{
+		try {
+			return read();
+		} catch (IOException e) {
+			throw new RuntimeException("Couldn't read the trace", e);
+		}
+	}
+
+	/**
+	 * Parse the next record from the buffer, filling it as needed.
+	 *
+	 * @return the record, or null at the end of the trace.
+	 * @throws IOException if the file can't be read.
+	 */
+	protected abstract TraceRecord read() throws IOException;
+
+	/**
+	 * Check the ontology ids of a record.
+	 *
+	 * @param values the ontology ids, or null for random values.
+	 * @throws IllegalArgumentException if they aren't the ids of a disease,
+	 *             disease driver, symptom and transmission.
+	 */
+	protected void checkValues(int[] values)
+	{
+		if(values != null && !knownValues.test(values))
+		{
+			throw new IllegalArgumentException("Unknown ontology ids " + Arrays.toString(values)
+					+ ", expected a disease, disease driver, symptom and transmission");
+		}
+	}
+
+	/**
+	 * Make sure the buffer holds some bytes, reading more of the file, after
+	 * the ones not parsed yet, if it holds fewer.
+	 *
+	 * @param bytes the bytes needed, at most the size of the buffer.
+	 * @return false if the file ends before that.
+	 * @throws IOException if the file can't be read.
+	 */
+	protected boolean fill(int bytes) throws IOException
+	{
+		while(buffer.remaining() < bytes && !ended)
+		{
+			buffer.compact();
+			ended = channel.read(buffer) < 0;
+			buffer.flip();
+		}
+		return buffer.remaining() >= bytes;
+	}
+
+	/**
+	 * Close the trace file.
+	 *
+	 * @throws IOException if it can't be closed.
+	 */
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+}
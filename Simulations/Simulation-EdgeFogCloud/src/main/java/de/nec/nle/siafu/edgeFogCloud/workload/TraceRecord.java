@@ -0,0 +1,85 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+/**
+ * A package recorded in a trace.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public final class TraceRecord {
+
+	/** The time it was sent, in seconds. */
+	private final double time;
+
+	/** The origin it was sent from: a place name, a place type, or a type and a key. */
+	private final String origin;
+
+	/** The application that sent it, 1 or 2. */
+	private final int application;
+
+	/** The ontology ids of its values, or null to draw random ones. */
+	private final int[] values;
+
+	/** Its size in bytes in the original form, 0 to count it from the values. */
+	private final int size;
+
+	/**
+	 * @param time the time it was sent, in seconds.
+	 * @param origin the origin it was sent from.
+	 * @param application the application that sent it, 1 or 2.
+	 * @param values the ontology ids of its values, or null.
+	 * @param size its size in bytes in the original form, or 0.
+	 */
+	TraceRecord(double time, String origin, int application, int[] values, int size)
+	{
+		if(application != 1 && application != 2)
+		{
+			throw new RuntimeException("Unknown application " + application + " in the trace");
+		}
+		this.time = time;
+		this.origin = origin;
+		this.application = application;
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * @return the time it was sent, in seconds.
+	 */
+	public double getTime()
+	{
+		return time;
+	}
+
+	/**
+	 * @return the origin it was sent from.
+	 */
+	public String getOrigin()
+	{
+		return origin;
+	}
+
+	/**
+	 * @return the application that sent it, 1 or 2.
+	 */
+	public int getApplication()
+	{
+		return application;
+	}
+
+	/**
+	 * @return the ontology ids of its values, or null to draw random ones.
+	 */
+	public int[] getValues()
+	{
+		return values;
+	}
+
+	/**
+	 * @return its size in bytes in the original form, 0 to count it from
+	 *         the values.
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,122 @@
+package de.nec.nle.siafu.edgeFogCloud.codec;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Round trips of the payload codecs, on ids of each sub-ontology.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class PayloadCodecTest extends TestCase {
+
+	/** A disease, disease driver, symptom and transmission. */
+	private static final int[] VALUES = {14566, 5001234, 60000019, 7000013};
+
+	/** The sorted ids of each sub-ontology, for the dictionary codec. */
+	private static final int[][] DICTIONARIES = {
+		{14, 162, 1612, 14566},
+		{21, 3123, 4000001, 5001234, 5999999},
+		{60000019},
+		{700001, 7000013, 7000020},
+	};
+
+	private void assertRoundTrip(PayloadCodec codec, int[] values) {
+		int[] decoded = codec.decode(codec.encode(values));
+		if (!Arrays.equals(values, decoded)) {
+			fail(codec.getName() + " decoded " + Arrays.toString(decoded) + " for "
+					+ Arrays.toString(values));
+		}
+	}
+
+	private void assertRejected(PayloadCodec codec, byte[] encoded) {
+		try {
+			int[] decoded = codec.decode(encoded);
+			fail(codec.getName() + " decoded " + Arrays.toString(decoded) + " from "
+					+ Arrays.toString(encoded));
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	public void testIds() {
+		PayloadCodec codec = new IdPayloadCodec();
+		assertRoundTrip(codec, VALUES);
+		assertEquals(4 * VALUES.length, codec.encode(VALUES).length);
+	}
+
+	public void testVarint() {
+		PayloadCodec codec = new VarintPayloadCodec();
+		assertRoundTrip(codec, VALUES);
+		assertRoundTrip(codec, new int[] {7000013, 60000019, 14566, 5001234});
+		assertRoundTrip(codec, new int[] {0, Integer.MAX_VALUE, Integer.MIN_VALUE, -1});
+		assertRoundTrip(codec, new int[0]);
+		assertEquals(4, codec.encode(new int[] {1, 2, 3, 4}).length);
+	}
+
+	public void testIdsRejectTruncatedPayloads() {
+		PayloadCodec codec = new IdPayloadCodec();
+		assertRejected(codec, Arrays.copyOf(codec.encode(VALUES), 4 * VALUES.length - 1));
+	}
+
+	public void testVarintRejectsTruncatedPayloads() {
+		PayloadCodec codec = new VarintPayloadCodec();
+		byte[] encoded = codec.encode(VALUES);
+		assertRejected(codec, Arrays.copyOf(encoded, encoded.length - 1));
+		// More than the five bytes an int takes.
+		assertRejected(codec, new byte[] {-1, -1, -1, -1, -1, 1});
+	}
+
+	public void testDictionary() {
+		PayloadCodec codec = new DictionaryPayloadCodec(DICTIONARIES);
+		assertRoundTrip(codec, VALUES);
+		for (int i = 0; i < DICTIONARIES[0].length; i++) {
+			assertRoundTrip(codec, new int[] {DICTIONARIES[0][i], DICTIONARIES[1][i],
+					DICTIONARIES[2][0], DICTIONARIES[3][i % DICTIONARIES[3].length]});
+		}
+		// 2 + 3 + 1 + 2 bits.
+		assertEquals(1, codec.encode(VALUES).length);
+	}
+
+	public void testDictionaryRejectsUnknownIds() {
+		PayloadCodec codec = new DictionaryPayloadCodec(DICTIONARIES);
+		try {
+			codec.encode(new int[] {15, 21, 60000019, 700001});
+			fail("Encoded an id that isn't in the dictionary");
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	public void testDictionaryRejectsTruncatedPayloads() {
+		PayloadCodec codec = new DictionaryPayloadCodec(DICTIONARIES);
+		assertRejected(codec, new byte[0]);
+		// The disease driver at position 7, past the end of its dictionary.
+		assertRejected(codec, new byte[] {-1});
+	}
+
+	public void testDeflate() {
+		PayloadCodec codec = new DeflatePayloadCodec();
+		assertRoundTrip(codec, VALUES);
+		assertRoundTrip(codec, new int[] {1, 1, 1, 1, 1, 1, 1, 1});
+	}
+
+	public void testDeflateRejectsTruncatedPayloads() {
+		PayloadCodec codec = new DeflatePayloadCodec();
+		byte[] encoded = codec.encode(VALUES);
+		assertRejected(codec, Arrays.copyOf(encoded, encoded.length / 2));
+	}
+
+	public void testCreateByName() {
+		assertEquals("ids", PayloadCodecs.create("ids").getName());
+		assertEquals("varint", PayloadCodecs.create("VARINT").getName());
+		assertEquals("deflate", PayloadCodecs.create("deflate").getName());
+		try {
+			PayloadCodecs.create("zip");
+			fail("Created an unknown codec");
+		} catch (RuntimeException e) {
+			// Expected.
+		}
+	}
+}
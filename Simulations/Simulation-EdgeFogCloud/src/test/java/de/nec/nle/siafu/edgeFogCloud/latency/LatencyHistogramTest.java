@@ -0,0 +1,79 @@
+package de.nec.nle.siafu.edgeFogCloud.latency;
+
+import junit.framework.TestCase;
+
+/**
+ * The buckets and percentiles of the latency histogram.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(50));
+		assertEquals(0.0, histogram.getMean(), 0);
+	}
+
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int value = 1; value <= 63; value++) {
+			histogram.record(value);
+		}
+		assertEquals(63, histogram.getCount());
+		assertEquals(32.0, histogram.getMean(), 1e-9);
+		assertEquals(1, histogram.getPercentile(0));
+		assertEquals(32, histogram.getPercentile(50));
+		assertEquals(63, histogram.getPercentile(100));
+	}
+
+	public void testLargeValuesKeepTheirPrecision() {
+		for (long value = 64; value < (1L << 40); value = value * 3 + 7) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			histogram.record(value);
+			// A larger value, so the median isn't capped by the max.
+			histogram.record(Long.MAX_VALUE >> 20);
+			long upper = histogram.getPercentile(50);
+			assertTrue(value + " read as " + upper, upper >= value);
+			assertTrue(value + " read as " + upper, upper - value <= value / 32);
+		}
+	}
+
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(1000000, histogram.getPercentile(100));
+		assertNear(500000, histogram.getPercentile(50));
+		assertNear(990000, histogram.getPercentile(99));
+		assertTrue(histogram.getPercentile(50) <= histogram.getPercentile(90));
+		assertTrue(histogram.getPercentile(90) <= histogram.getPercentile(99));
+	}
+
+	public void testPercentilesNeverExceedTheMax() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		assertEquals(1000, histogram.getPercentile(100));
+		assertEquals(1000, histogram.getPercentile(50));
+	}
+
+	public void testOutOfRangeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		assertEquals(0, histogram.getPercentile(100));
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(2, histogram.getCount());
+		assertEquals((1L << 41) - 1, histogram.getMax());
+		assertEquals(histogram.getMax(), histogram.getPercentile(100));
+	}
+
+	private static void assertNear(long expected, long actual) {
+		assertTrue("expected about " + expected + " but was " + actual,
+				actual >= expected && actual - expected <= expected / 32);
+	}
+}
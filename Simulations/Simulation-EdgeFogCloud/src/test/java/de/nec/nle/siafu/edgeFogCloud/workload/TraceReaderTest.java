@@ -0,0 +1,213 @@
+package de.nec.nle.siafu.edgeFogCloud.workload;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import junit.framework.TestCase;
+
+/**
+ * Reading the CSV and binary traces.
+ *
+ * @author João Pedro de Souza Jardim da Costa
+ */
+public class TraceReaderTest extends TestCase {
+
+	/** A disease, disease driver, symptom and transmission. */
+	private static final int[] VALUES = {14566, 5001234, 60000019, 7000013};
+
+	/** Knows only the ids of VALUES, in their order. */
+	private static final Predicate<int[]> KNOWN = new Predicate<int[]>() {
+		public boolean test(int[] values) {
+			return Arrays.equals(values, VALUES);
+		}
+	};
+
+	private File file;
+
+	protected void setUp() throws Exception {
+		file = File.createTempFile("trace", null);
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	private void writeCsv(String text) throws IOException {
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			out.write(text);
+		}
+	}
+
+	private DataOutputStream openBinary() throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		out.writeInt(0x53465452);
+		out.writeInt(1);
+		return out;
+	}
+
+	private static void writeRecord(DataOutputStream out, double time, String origin, int app,
+			int[] values, int size) throws IOException {
+		byte[] originBytes = origin.getBytes(StandardCharsets.UTF_8);
+		out.writeDouble(time);
+		out.writeShort(originBytes.length);
+		out.write(originBytes);
+		out.writeByte(app);
+		out.writeByte(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+		out.writeInt(size);
+	}
+
+	private static void assertRecord(TraceRecord record, double time, String origin, int app,
+			int[] values, int size) {
+		assertNotNull(record);
+		assertEquals(time, record.getTime(), 1e-9);
+		assertEquals(origin, record.getOrigin());
+		assertEquals(app, record.getApplication());
+		assertTrue(Arrays.toString(record.getValues()), Arrays.equals(values, record.getValues()));
+		assertEquals(size, record.getSize());
+	}
+
+	public void testCsv() throws IOException {
+		writeCsv("time,origin,app,payload,size\n"
+				+ "# recorded at the edge\n"
+				+ "0.25,House-120.200,1,14566;5001234;60000019;7000013,96\r\n"
+				+ "\n"
+				+ "0.40, Edge:sensor-17 ,APP2,,\n"
+				+ ".5,House,2,,12");
+		try (TraceReader reader = TraceReader.open(file, "csv", KNOWN)) {
+			assertRecord(reader.next(), 0.25, "House-120.200", 1, VALUES, 96);
+			assertRecord(reader.next(), 0.40, "Edge:sensor-17", 2, null, 0);
+			assertRecord(reader.next(), 0.5, "House", 2, null, 12);
+			assertNull(reader.next());
+			assertNull(reader.next());
+		}
+	}
+
+	public void testCsvLongLinesAndLargeFiles() throws IOException {
+		char[] name = new char[1000];
+		Arrays.fill(name, 'x');
+		StringBuilder text = new StringBuilder();
+		int records = 5000;
+		for (int i = 0; i < records; i++) {
+			text.append(i).append(',').append(name).append(",1,14566;5001234;60000019;7000013,\n");
+		}
+		writeCsv(text.toString());
+		try (TraceReader reader = TraceReader.open(file, "csv", KNOWN)) {
+			for (int i = 0; i < records; i++) {
+				assertRecord(reader.next(), i, new String(name), 1, VALUES, 0);
+			}
+			assertNull(reader.next());
+		}
+	}
+
+	public void testCsvRejectsUnknownIds() throws IOException {
+		writeCsv("0.25,House,1,14566;5001234;60000019;7000013,\n"
+				+ "0.50,House,1,14566;5001234;60000019;7000014,\n");
+		try (TraceReader reader = TraceReader.open(file, "csv", KNOWN)) {
+			assertNotNull(reader.next());
+			try {
+				reader.next();
+				fail("Read unknown ids");
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid trace line 2"));
+				assertTrue(e.getCause() instanceof IllegalArgumentException);
+			}
+		}
+	}
+
+	public void testCsvRejectsMalformedLines() throws IOException {
+		writeCsv("0.25,House\n");
+		try (TraceReader reader = TraceReader.open(file, "csv", KNOWN)) {
+			reader.next();
+			fail("Read a line without an app");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid trace line 1"));
+		}
+	}
+
+	public void testBinary() throws IOException {
+		try (DataOutputStream out = openBinary()) {
+			writeRecord(out, 0.25, "House-120.200", 1, VALUES, 96);
+			writeRecord(out, 0.40, "Edge:sensor-17", 2, new int[0], 0);
+		}
+		try (TraceReader reader = TraceReader.open(file, "binary", KNOWN)) {
+			assertRecord(reader.next(), 0.25, "House-120.200", 1, VALUES, 96);
+			assertRecord(reader.next(), 0.40, "Edge:sensor-17", 2, null, 0);
+			assertNull(reader.next());
+		}
+	}
+
+	public void testBinaryLargeFiles() throws IOException {
+		int records = 20000;
+		try (DataOutputStream out = openBinary()) {
+			for (int i = 0; i < records; i++) {
+				writeRecord(out, i, "House", 1 + i % 2, VALUES, i);
+			}
+		}
+		try (TraceReader reader = TraceReader.open(file, "binary", KNOWN)) {
+			for (int i = 0; i < records; i++) {
+				assertRecord(reader.next(), i, "House", 1 + i % 2, VALUES, i);
+			}
+			assertNull(reader.next());
+		}
+	}
+
+	public void testBinaryRejectsUnknownIds() throws IOException {
+		try (DataOutputStream out = openBinary()) {
+			writeRecord(out, 0.25, "House", 1, VALUES, 0);
+			writeRecord(out, 0.50, "House", 1, new int[] {14566, 5001234}, 0);
+		}
+		try (TraceReader reader = TraceReader.open(file, "binary", KNOWN)) {
+			assertNotNull(reader.next());
+			try {
+				reader.next();
+				fail("Read unknown ids");
+			} catch (RuntimeException e) {
+				assertEquals("Invalid trace record 2", e.getMessage());
+				assertTrue(e.getCause() instanceof IllegalArgumentException);
+			}
+		}
+	}
+
+	public void testBinaryRejectsTruncatedRecords() throws IOException {
+		try (DataOutputStream out = openBinary()) {
+			out.writeDouble(0.25);
+			out.writeShort(5);
+			out.write("Ho".getBytes(StandardCharsets.UTF_8));
+		}
+		try (TraceReader reader = TraceReader.open(file, "binary", KNOWN)) {
+			reader.next();
+			fail("Read a truncated record");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	public void testBinaryRejectsOtherFiles() throws IOException {
+		writeCsv("0.25,House,1,,\n");
+		try {
+			TraceReader.open(file, "binary", KNOWN).close();
+			fail("Opened a CSV trace as a binary one");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	public void testUnknownFormat() throws IOException {
+		try {
+			TraceReader.open(file, "json", KNOWN).close();
+			fail("Opened a trace of an unknown format");
+		} catch (RuntimeException e) {
+			assertEquals("Unknown trace format json", e.getMessage());
+		}
+	}
+}